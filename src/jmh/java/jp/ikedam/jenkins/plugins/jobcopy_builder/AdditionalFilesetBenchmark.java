@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hudson.EnvVars;
+import hudson.util.NullStream;
+
+/**
+ * Benchmarks for {@link AdditionalFileset#performToFile(File, File, EnvVars, JobcopyLogLevel, PrintStream)}.
+ *
+ * With <code>incremental</code>, the destination is written in the first invocation
+ * and left unchanged in the following invocations.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdditionalFilesetBenchmark
+{
+    /**
+     * 10 KB, 1 MB and 10 MB.
+     */
+    @Param({ "10240", "1048576", "10485760" })
+    public int size;
+
+    @Param({ "false", "true" })
+    public boolean incremental;
+
+    private File workDir;
+
+    private File srcFile;
+
+    private File dstFile;
+
+    private AdditionalFileset additionalFileset;
+
+    private final EnvVars env = new EnvVars("TO", "replaced");
+
+    private final PrintStream logger = new PrintStream(new NullStream());
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        workDir = File.createTempFile("jobcopy-benchmark", null);
+        workDir.delete();
+        workDir.mkdir();
+        srcFile = new File(workDir, "src.xml");
+        dstFile = new File(workDir, "dst.xml");
+        FileUtils.writeStringToFile(srcFile, SyntheticConfig.generate(size), "UTF-8");
+
+        additionalFileset = new AdditionalFileset("*.xml", null, true, Arrays.<JobcopyOperation> asList(
+                new ReplaceOperation(SyntheticConfig.FROM_STR, false, "${TO}", true)));
+        additionalFileset.setIncremental(incremental);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        FileUtils.deleteDirectory(workDir);
+    }
+
+    @Benchmark
+    public boolean performToFile()
+    {
+        return additionalFileset.performToFile(dstFile, srcFile, env, JobcopyLogLevel.NONE, logger);
+    }
+}
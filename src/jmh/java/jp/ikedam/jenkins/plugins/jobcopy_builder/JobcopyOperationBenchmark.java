@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hudson.EnvVars;
+import hudson.util.NullStream;
+
+/**
+ * Benchmarks for {@link JobcopyOperation}s applied to a configuration.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JobcopyOperationBenchmark
+{
+    /**
+     * 10 KB, 1 MB and 10 MB.
+     */
+    @Param({ "10240", "1048576", "10485760" })
+    public int size;
+
+    private String xmlString;
+
+    private final EnvVars env = new EnvVars("TO", "replaced");
+
+    private final PrintStream logger = new PrintStream(new NullStream());
+
+    private final ReplaceOperation replaceOperation = new ReplaceOperation(SyntheticConfig.FROM_STR, false,
+            "${TO}", true);
+
+    private final ReplaceRegExpOperation replaceRegExpOperation = new ReplaceRegExpOperation("module([0-9]+)",
+            false, "module-$1", false);
+
+    private final EnableOperation enableOperation = new EnableOperation();
+
+    private final DisableOperation disableOperation = new DisableOperation();
+
+    @Setup
+    public void setUp()
+    {
+        xmlString = SyntheticConfig.generate(size);
+    }
+
+    @Benchmark
+    public String parseAndSerialize() throws Exception
+    {
+        return AbstractXmlJobcopyOperation.getXmlString(
+                AbstractXmlJobcopyOperation.getXmlDocumentFromString(xmlString, "UTF-8", logger));
+    }
+
+    @Benchmark
+    public String replace()
+    {
+        return replaceOperation.perform(xmlString, "UTF-8", env, logger);
+    }
+
+    @Benchmark
+    public String replaceRegExp()
+    {
+        return replaceRegExpOperation.perform(xmlString, "UTF-8", env, logger);
+    }
+
+    @Benchmark
+    public String enable()
+    {
+        return enableOperation.perform(xmlString, "UTF-8", env, logger);
+    }
+
+    @Benchmark
+    public String disable()
+    {
+        return disableOperation.perform(xmlString, "UTF-8", env, logger);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+/**
+ * Generates job configurations of specified sizes for benchmarks.
+ *
+ * Configurations are freestyle projects with many shell build steps,
+ * each containing "@@FROM@@" to be replaced.
+ */
+final class SyntheticConfig
+{
+    /**
+     * The string to be replaced in configurations.
+     */
+    public static final String FROM_STR = "@@FROM@@";
+
+    private SyntheticConfig()
+    {
+    }
+
+    /**
+     * Generates a configuration.
+     *
+     * @param size
+     *            the approximate size of the configuration, in characters.
+     * @return the configuration.
+     */
+    public static String generate(final int size)
+    {
+        final String footer = "  </builders>\n</project>\n";
+        final StringBuilder sb = new StringBuilder(size + 256);
+        sb.append("<?xml version='1.0' encoding='UTF-8'?>\n");
+        sb.append("<project>\n");
+        sb.append("  <description>Generated for benchmarks</description>\n");
+        sb.append("  <disabled>false</disabled>\n");
+        sb.append("  <builders>\n");
+        for (int i = 0; sb.length() + footer.length() < size; ++i)
+        {
+            sb.append("    <hudson.tasks.Shell>\n");
+            sb.append(String.format("      <command>echo step%d %s &amp;&amp; make -C module%d</command>\n", i, FROM_STR,
+                    i));
+            sb.append("    </hudson.tasks.Shell>\n");
+        }
+        sb.append(footer);
+        return sb.toString();
+    }
+}
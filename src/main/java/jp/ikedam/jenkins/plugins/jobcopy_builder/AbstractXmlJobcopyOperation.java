@@ -29,6 +29,9 @@ import java.io.InputStream;
 import java.io.PrintStream;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -39,11 +42,9 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
@@ -81,6 +82,57 @@ public abstract class AbstractXmlJobcopyOperation extends JobcopyOperation imple
     @Override
     public String perform(final String xmlString, final String encoding, final EnvVars env, final PrintStream logger)
     {
+        return perform(Collections.singletonList(this), xmlString, encoding, env, logger);
+    }
+
+    /**
+     * Performs a sequence of operations sharing one XML Document.
+     *
+     * The XML string is parsed only once before the first operation,
+     * and the Document is serialized only once after the last operation.
+     *
+     * @param operationList
+     *            operations to perform in order.
+     * @param xmlString
+     *            XML string of the job to be copied (job/NAME/config.xml)
+     * @param encoding
+     *            encoding of the XML.
+     * @param env
+     *            Variables defined in the build.
+     * @param logger
+     *            The output stream to log.
+     * @return modified XML string. Returns null if an error occurs.
+     */
+    static String perform(final List<? extends AbstractXmlJobcopyOperation> operationList, final String xmlString,
+            final String encoding, final EnvVars env, final PrintStream logger)
+    {
+        return perform(operationList, xmlString, encoding, env, logger, null, 0);
+    }
+
+    /**
+     * Performs a sequence of operations sharing one XML Document, recording time of each phase.
+     *
+     * @param operationList
+     *            operations to perform in order.
+     * @param xmlString
+     *            XML string of the job to be copied (job/NAME/config.xml)
+     * @param encoding
+     *            encoding of the XML.
+     * @param env
+     *            Variables defined in the build.
+     * @param logger
+     *            The output stream to log.
+     * @param timings
+     *            timings to record parsing, each operation and serializing. null not to record.
+     * @param firstIndex
+     *            the position of the first operation, used for names of phases.
+     * @return modified XML string. Returns null if an error occurs.
+     */
+    static String perform(final List<? extends AbstractXmlJobcopyOperation> operationList, final String xmlString,
+            final String encoding, final EnvVars env, final PrintStream logger, final PhaseTimings timings,
+            final int firstIndex)
+    {
+        final long start = System.nanoTime();
         Document doc;
         try
         {
@@ -91,17 +143,80 @@ public abstract class AbstractXmlJobcopyOperation extends JobcopyOperation imple
             e.printStackTrace(logger);
             return null;
         }
+        PhaseTimings.record(timings, "Parse the configuration", start);
+
+        return perform(operationList, doc, env, logger, timings, firstIndex);
+    }
+
+    /**
+     * Performs a sequence of operations to a parsed XML Document, and serializes the result.
+     *
+     * @param operationList
+     *            operations to perform in order.
+     * @param doc
+     *            XML Document of the job to be copied. Modified by the operations.
+     * @param env
+     *            Variables defined in the build.
+     * @param logger
+     *            The output stream to log.
+     * @return modified XML string. Returns null if an error occurs.
+     */
+    static String perform(final List<? extends AbstractXmlJobcopyOperation> operationList, final Document doc,
+            final EnvVars env, final PrintStream logger)
+    {
+        return perform(operationList, doc, env, logger, null, 0);
+    }
 
-        final Document newDoc = perform(doc, env, logger);
-        if(newDoc == null)
+    /**
+     * Performs a sequence of operations to a parsed XML Document, and serializes the result,
+     * recording time of each phase.
+     *
+     * @param operationList
+     *            operations to perform in order.
+     * @param doc
+     *            XML Document of the job to be copied. Modified by the operations.
+     * @param env
+     *            Variables defined in the build.
+     * @param logger
+     *            The output stream to log.
+     * @param timings
+     *            timings to record each operation and serializing. null not to record.
+     * @param firstIndex
+     *            the position of the first operation, used for names of phases.
+     * @return modified XML string. Returns null if an error occurs.
+     */
+    static String perform(final List<? extends AbstractXmlJobcopyOperation> operationList, Document doc,
+            final EnvVars env, final PrintStream logger, final PhaseTimings timings, final int firstIndex)
+    {
+        long t = System.nanoTime();
+        for (int i = 0; i < operationList.size(); ++i)
         {
-            // It seems that an error occurred in XML processing.
-            return null;
+            final AbstractXmlJobcopyOperation operation = operationList.get(i);
+            final JobcopyEvents.OperationEvent event = JobcopyEvents.getInstance().newOperationEvent();
+            event.begin();
+            Document result = null;
+            try
+            {
+                result = operation.perform(doc, env, logger);
+            } finally
+            {
+                // always ends the event not to leave it as the current one of the thread.
+                event.commit(operation, result != null);
+            }
+            doc = result;
+            if(doc == null)
+            {
+                // It seems that an error occurred in XML processing.
+                return null;
+            }
+            t = PhaseTimings.record(timings, PhaseTimings.getOperationPhaseName(firstIndex + i, operation), t);
         }
 
         try
         {
-            return getXmlString(newDoc);
+            final String result = getXmlString(doc);
+            PhaseTimings.record(timings, "Serialize the configuration", t);
+            return result;
         } catch (final Exception e)
         {
             logger.print("Error occured in XML operation");
@@ -110,6 +225,73 @@ public abstract class AbstractXmlJobcopyOperation extends JobcopyOperation imple
         }
     }
 
+    /**
+     * Holds XML factories.
+     *
+     * Looking up factories scans the classpath with ServiceLoader,
+     * so they are looked up only once, when first used.
+     * Factories are not thread-safe and must be used in synchronized blocks.
+     */
+    private static class XmlFactories
+    {
+        static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
+        static final TransformerFactory TRANSFORMER_FACTORY = TransformerFactory.newInstance();
+    }
+
+    /**
+     * DocumentBuilder for each thread, as DocumentBuilder is not thread-safe.
+     */
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = new ThreadLocal<DocumentBuilder>();
+
+    /**
+     * Transformer for each thread, as Transformer is not thread-safe.
+     */
+    private static final ThreadLocal<Transformer> TRANSFORMER = new ThreadLocal<Transformer>();
+
+    /**
+     * Returns the DocumentBuilder for the current thread.
+     *
+     * Call {@link DocumentBuilder#reset()} after use.
+     *
+     * @return DocumentBuilder
+     * @throws ParserConfigurationException
+     */
+    private static DocumentBuilder getDocumentBuilder() throws ParserConfigurationException
+    {
+        DocumentBuilder builder = DOCUMENT_BUILDER.get();
+        if(builder == null)
+        {
+            synchronized (XmlFactories.DOCUMENT_BUILDER_FACTORY)
+            {
+                builder = XmlFactories.DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+            }
+            DOCUMENT_BUILDER.set(builder);
+        }
+        return builder;
+    }
+
+    /**
+     * Returns the Transformer for the current thread.
+     *
+     * Call {@link Transformer#reset()} after use.
+     *
+     * @return Transformer
+     * @throws TransformerException
+     */
+    private static Transformer getTransformer() throws TransformerException
+    {
+        Transformer transformer = TRANSFORMER.get();
+        if(transformer == null)
+        {
+            synchronized (XmlFactories.TRANSFORMER_FACTORY)
+            {
+                transformer = XmlFactories.TRANSFORMER_FACTORY.newTransformer();
+            }
+            TRANSFORMER.set(transformer);
+        }
+        return transformer;
+    }
+
     /**
      * Retrieve the XML string from XML Document object
      *
@@ -118,17 +300,22 @@ public abstract class AbstractXmlJobcopyOperation extends JobcopyOperation imple
      * @return the XML string
      * @throws TransformerException
      */
-    private String getXmlString(final Document doc)
+    static String getXmlString(final Document doc)
             throws TransformerException
     {
-        final TransformerFactory tfactory = TransformerFactory.newInstance();
-        final Transformer transformer = tfactory.newTransformer();
-        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        final Transformer transformer = getTransformer();
+        try
+        {
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
 
-        final StringWriter sw = new StringWriter();
-        transformer.transform(new DOMSource(doc), new StreamResult(sw));
+            final StringWriter sw = new StringWriter();
+            transformer.transform(new DOMSource(doc), new StreamResult(sw));
 
-        return sw.toString();
+            return sw.toString();
+        } finally
+        {
+            transformer.reset();
+        }
     }
 
     /**
@@ -144,38 +331,43 @@ public abstract class AbstractXmlJobcopyOperation extends JobcopyOperation imple
      * @throws SAXException
      * @throws IOException
      */
-    private Document getXmlDocumentFromString(final String xmlString, final String encoding, final PrintStream logger)
+    static Document getXmlDocumentFromString(final String xmlString, final String encoding, final PrintStream logger)
             throws ParserConfigurationException, UnsupportedEncodingException, SAXException, IOException
     {
-        final DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
-        // domFactory.setNamespaceAware(true);
-        final DocumentBuilder builder = domFactory.newDocumentBuilder();
-        builder.setErrorHandler(new ErrorHandler()
+        final InputStream is = new ByteArrayInputStream((encoding != null) ? xmlString.getBytes(encoding)
+                : xmlString.getBytes());
+
+        final DocumentBuilder builder = getDocumentBuilder();
+        try
         {
-            @Override
-            public void warning(final SAXParseException exception)
-                    throws SAXException
+            builder.setErrorHandler(new ErrorHandler()
             {
-                exception.printStackTrace(logger);
-            }
+                @Override
+                public void warning(final SAXParseException exception)
+                        throws SAXException
+                {
+                    exception.printStackTrace(logger);
+                }
 
-            @Override
-            public void error(final SAXParseException exception) throws SAXException
-            {
-                exception.printStackTrace(logger);
-            }
+                @Override
+                public void error(final SAXParseException exception) throws SAXException
+                {
+                    exception.printStackTrace(logger);
+                }
 
-            @Override
-            public void fatalError(final SAXParseException exception)
-                    throws SAXException
-            {
-                exception.printStackTrace(logger);
-            }
-        });
-        final InputStream is = new ByteArrayInputStream((encoding != null) ? xmlString.getBytes(encoding)
-                : xmlString.getBytes());
+                @Override
+                public void fatalError(final SAXParseException exception)
+                        throws SAXException
+                {
+                    exception.printStackTrace(logger);
+                }
+            });
 
-        return builder.parse(is);
+            return builder.parse(is);
+        } finally
+        {
+            builder.reset();
+        }
     }
 
     /****** Utility methods working with XML. Usable from subclasses. ******/
@@ -222,13 +414,47 @@ public abstract class AbstractXmlJobcopyOperation extends JobcopyOperation imple
     protected NodeList getNodeList(final Document doc, final String xpathExpression)
             throws XPathExpressionException
     {
-        final XPathFactory factory = XPathFactory.newInstance();
-        final XPath xpath = factory.newXPath();
-        final XPathExpression expr = xpath.compile(xpathExpression);
+        final XPathExpression expr = XPathExpressionCache.compile(xpathExpression);
 
         return (NodeList) expr.evaluate(doc, XPathConstants.NODESET);
     }
 
+    /**
+     * Retrieve all text nodes and CDATA sections in document order.
+     *
+     * Use this rather than XPath "//text()",
+     * which does not retrieve CDATA sections in the implementation of JDK.
+     *
+     * @param doc
+     *            the XML Document object.
+     * @return text nodes and CDATA sections.
+     */
+    protected List<Node> getTextNodeList(final Document doc)
+    {
+        final List<Node> textNodeList = new ArrayList<Node>();
+        final Node root = doc.getDocumentElement();
+        Node node = root;
+        while(node != null)
+        {
+            if(node.getNodeType() == Node.TEXT_NODE || node.getNodeType() == Node.CDATA_SECTION_NODE)
+            {
+                textNodeList.add(node);
+            }
+            if(node.getFirstChild() != null)
+            {
+                node = node.getFirstChild();
+                continue;
+            }
+            // go to the next sibling of the node or its nearest ancestor.
+            while(node != root && node.getNextSibling() == null)
+            {
+                node = node.getParentNode();
+            }
+            node = (node != root) ? node.getNextSibling() : null;
+        }
+        return textNodeList;
+    }
+
     /**
      * Retrieve a XPath expression of a node.
      *
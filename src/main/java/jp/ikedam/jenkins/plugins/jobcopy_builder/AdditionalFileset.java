@@ -35,6 +35,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.tools.ant.DirectoryScanner;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 
 import hudson.DescriptorExtensionList;
@@ -117,6 +118,59 @@ public class AdditionalFileset extends AbstractDescribableImpl<AdditionalFileset
         return jobcopyOperationList;
     }
     
+    private boolean incremental;
+    
+    /**
+     * Returns whether to leave files not changed.
+     * 
+     * @return whether not to write files when the copied contents are same to the existing ones.
+     */
+    public boolean isIncremental()
+    {
+        return incremental;
+    }
+    
+    /**
+     * Sets whether to leave files not changed.
+     * 
+     * When this is set and the copied-to file already exists with the same contents,
+     * the file is not written (the timestamp of the file is not changed, either).
+     * This makes sense only when {@link #isOverwrite()} is set.
+     * 
+     * @param incremental whether not to write files when the copied contents are same to the existing ones.
+     */
+    @DataBoundSetter
+    public void setIncremental(boolean incremental)
+    {
+        this.incremental = incremental;
+    }
+    
+    private int parallelism = 1;
+    
+    /**
+     * Returns the maximum number of files processed at the same time.
+     * 
+     * @return the maximum number of files processed at the same time. 1 or more.
+     */
+    public int getParallelism()
+    {
+        return Math.max(parallelism, 1);
+    }
+    
+    /**
+     * Sets the maximum number of files processed at the same time.
+     * 
+     * Useful when accesses to files are slow
+     * (e.g. JENKINS_HOME is on a network file system).
+     * 
+     * @param parallelism the maximum number of files processed at the same time. 1 or less to process files one by one.
+     */
+    @DataBoundSetter
+    public void setParallelism(int parallelism)
+    {
+        this.parallelism = parallelism;
+    }
+    
     /**
      * Constructor to instantiate from parameters in the job configuration page.
      * 
@@ -142,33 +196,153 @@ public class AdditionalFileset extends AbstractDescribableImpl<AdditionalFileset
     /**
      * Copy the additional files and apply additional operations.
      * 
+     * Contents of files are logged fully.
+     * 
      * @param toJob
      * @param fromJob
      * @param logger
      * @return whether the work succeeded.
      */
     public boolean perform(TopLevelItem toJob, TopLevelItem fromJob, EnvVars env, PrintStream logger)
+    {
+        return perform(toJob, fromJob, env, null, logger);
+    }
+    
+    /**
+     * Copy the additional files and apply additional operations.
+     * 
+     * Files are processed in parallel when {@link #getParallelism()} is 2 or more.
+     * Logs of each file are written in the order of files even in that case.
+     * 
+     * @param toJob
+     * @param fromJob
+     * @param env
+     * @param logLevel  how much of contents of files are logged.
+     *                  null to process files with {@link #performToFile(File, File, EnvVars, PrintStream)}.
+     *                  Otherwise, files are processed with {@link #processFile(File, File, EnvVars, JobcopyLogLevel, PrintStream)}
+     *                  and numbers of files are logged for each result.
+     * @param logger
+     * @return whether the work succeeded.
+     */
+    public boolean perform(TopLevelItem toJob, TopLevelItem fromJob, EnvVars env, JobcopyLogLevel logLevel, PrintStream logger)
+    {
+        List<FileResult> resultList = performFiles(toJob, fromJob, env, logLevel, logger);
+        return resultList != null && !resultList.contains(FileResult.FAILED);
+    }
+    
+    /**
+     * Copy the additional files and apply additional operations.
+     * 
+     * Same as {@link #perform(TopLevelItem, TopLevelItem, EnvVars, JobcopyLogLevel, PrintStream)},
+     * but returns the result of each file.
+     * This allows callers to tell whether files are actually written.
+     * 
+     * @param toJob
+     * @param fromJob
+     * @param env
+     * @param logLevel  how much of contents of files are logged.
+     *                  null to process files with {@link #performToFile(File, File, EnvVars, PrintStream)}.
+     * @param logger
+     * @return the results of files. null if failed before processing files.
+     */
+    public List<FileResult> performFiles(TopLevelItem toJob, TopLevelItem fromJob, final EnvVars env, final JobcopyLogLevel logLevel, PrintStream logger)
+    {
+        return performFiles(toJob.getRootDir(), toJob.getFullName(), fromJob, env, logLevel, false, logger);
+    }
+    
+    /**
+     * Apply additional operations to the additional files without writing them.
+     * 
+     * Files are read and transformed as {@link #performFiles(TopLevelItem, TopLevelItem, EnvVars, JobcopyLogLevel, PrintStream)} does,
+     * and compared with the files in the destination directory.
+     * {@link FileResult#WRITTEN} means that the file would be written.
+     * 
+     * @param toDir     the directory of the job to be copied to. need not exist.
+     * @param toJobName the name of the job to be copied to.
+     * @param fromJob
+     * @param env
+     * @param logLevel  how much of contents of files are logged. must not be null.
+     * @param logger
+     * @return the results of files. null if failed before processing files.
+     */
+    public List<FileResult> planFiles(File toDir, String toJobName, TopLevelItem fromJob, final EnvVars env, final JobcopyLogLevel logLevel, PrintStream logger)
+    {
+        return performFiles(toDir, toJobName, fromJob, env, logLevel, true, logger);
+    }
+    
+    private List<FileResult> performFiles(File toDir, String toJobName, TopLevelItem fromJob, final EnvVars env, final JobcopyLogLevel logLevel, final boolean dryRun, PrintStream logger)
     {
         if(StringUtils.isBlank(getIncludeFile()))
         {
             logger.println("includeFile is not configured");
-            return false;
+            return null;
         }
         
-        boolean ret = true;
+        List<ParallelTaskRunner.Task<FileResult>> taskList = new ArrayList<ParallelTaskRunner.Task<FileResult>>();
+        for(final String filename: getFilesToCopy(fromJob.getRootDir()))
+        {
+            final File srcFile = new File(fromJob.getRootDir(), filename);
+            final File dstFile = new File(toDir, filename);
+            taskList.add(new ParallelTaskRunner.Task<FileResult>()
+            {
+                @Override
+                public FileResult call(PrintStream taskLogger)
+                {
+                    taskLogger.println(String.format("Copy %s", filename));
+                    if(dryRun)
+                    {
+                        return doProcessFile(dstFile, srcFile, env, logLevel, true, taskLogger);
+                    }
+                    if(logLevel != null)
+                    {
+                        return processFile(dstFile, srcFile, env, logLevel, taskLogger);
+                    }
+                    return performToFile(dstFile, srcFile, env, taskLogger)?FileResult.WRITTEN:FileResult.FAILED;
+                }
+            });
+        }
+        
+        List<FileResult> resultList;
+        try
+        {
+            resultList = ParallelTaskRunner.run(
+                    taskList,
+                    getParallelism(),
+                    String.format("Copying files of %s", toJobName),
+                    logger
+            );
+        }
+        catch(InterruptedException e)
+        {
+            logger.println("Interrupted while copying files");
+            Thread.currentThread().interrupt();
+            return null;
+        }
         
-        for(String filename: getFilesToCopy(fromJob.getRootDir()))
+        int[] countList = new int[FileResult.values().length];
+        for(int i = 0; i < resultList.size(); ++i)
         {
-            logger.println(String.format("Copy %s", filename));
-            File srcFile = new File(fromJob.getRootDir(), filename);
-            File dstFile = new File(toJob.getRootDir(), filename);
-            if(!performToFile(dstFile, srcFile, env, logger))
+            if(resultList.get(i) == null)
             {
-                ret = false;
+                // a task failed with an exception.
+                resultList.set(i, FileResult.FAILED);
             }
+            ++countList[resultList.get(i).ordinal()];
         }
         
-        return ret;
+        if(logLevel != null && !resultList.isEmpty())
+        {
+            logger.println(String.format(
+                    dryRun?"Files: %d to write, %d not changed, %d skipped, %d failed"
+                            :"Files: %d written, %d not changed, %d skipped, %d failed",
+                    countList[FileResult.WRITTEN.ordinal()],
+                    countList[FileResult.UNCHANGED.ordinal()],
+                    countList[FileResult.SKIPPED.ordinal()],
+                    countList[FileResult.FAILED.ordinal()]
+            ));
+        }
+        
+        return resultList;
     }
     
     protected List<String> getFilesToCopy(File dir)
@@ -190,17 +364,99 @@ public class AdditionalFileset extends AbstractDescribableImpl<AdditionalFileset
     /**
      * Process one file.
      * 
+     * Contents of the file are logged fully.
+     * 
      * @param dstFile
      * @param srcFile
      * @param logger
      * @return
      */
     protected boolean performToFile(File dstFile, File srcFile, EnvVars env, PrintStream logger)
+    {
+        return performToFile(dstFile, srcFile, env, JobcopyLogLevel.FULL, logger);
+    }
+    
+    /**
+     * Process one file.
+     * 
+     * @param dstFile
+     * @param srcFile
+     * @param env
+     * @param logLevel  how much of contents of the file are logged.
+     * @param logger
+     * @return
+     */
+    protected boolean performToFile(File dstFile, File srcFile, EnvVars env, JobcopyLogLevel logLevel, PrintStream logger)
+    {
+        return processFile(dstFile, srcFile, env, logLevel, logger) != FileResult.FAILED;
+    }
+    
+    /**
+     * The result of processing a file.
+     */
+    public static enum FileResult
+    {
+        /**
+         * The file is written.
+         */
+        WRITTEN,
+        /**
+         * The file is not written as it already has the same contents.
+         */
+        UNCHANGED,
+        /**
+         * The file is not written as it already exists and overwrite is not set.
+         */
+        SKIPPED,
+        /**
+         * Failed to process the file.
+         */
+        FAILED
+    }
+    
+    /**
+     * Process one file.
+     * 
+     * @param dstFile
+     * @param srcFile
+     * @param env
+     * @param logLevel  how much of contents of the file are logged.
+     * @param logger
+     * @return the result.
+     */
+    protected FileResult processFile(File dstFile, File srcFile, EnvVars env, JobcopyLogLevel logLevel, PrintStream logger)
+    {
+        JobcopyEvents.AdditionalFileEvent event = JobcopyEvents.getInstance().newAdditionalFileEvent();
+        event.begin();
+        FileResult result = FileResult.FAILED;
+        try
+        {
+            result = doProcessFile(dstFile, srcFile, env, logLevel, false, logger);
+        }
+        finally
+        {
+            event.commit(dstFile.getPath(), srcFile.length(), result.name());
+        }
+        return result;
+    }
+    
+    /**
+     * Process one file.
+     * 
+     * @param dryRun    true not to write the file but only to tell the result.
+     */
+    private FileResult doProcessFile(File dstFile, File srcFile, EnvVars env, JobcopyLogLevel logLevel, boolean dryRun, PrintStream logger)
     {
         if(dstFile.exists() && !isOverwrite())
         {
             logger.println(String.format("%s is already exists...skip.", dstFile.getPath()));
-            return true;
+            return FileResult.SKIPPED;
+        }
+        
+        if(getJobcopyOperationList() == null || getJobcopyOperationList().isEmpty())
+        {
+            // Nothing to modify. Copy bytes as they are.
+            return copyFile(dstFile, srcFile, logLevel, dryRun, logger);
         }
         
         // Read file into string.
@@ -214,40 +470,107 @@ public class AdditionalFileset extends AbstractDescribableImpl<AdditionalFileset
         {
             logger.println(String.format("Failed to read from %s", srcFile.getPath()));
             e.printStackTrace(logger);
-            return false;
+            return FileResult.FAILED;
         }
         
-        logger.println("Original contents:");
-        logger.println(fileContents);
+        logLevel.logOriginal("Original contents", fileContents, logger);
         
         // Apply additional operations to the retrieved Contents.
-        if(getJobcopyOperationList() != null)
+        String copiedContents = new JobcopyOperationPipeline(getJobcopyOperationList()).perform(fileContents, encoding, env, logger);
+        if(copiedContents == null)
         {
-            for(JobcopyOperation operation: getJobcopyOperationList())
-            {
-                fileContents = operation.perform(fileContents, encoding, env, logger);
-                if(fileContents == null)
-                {
-                    return false;
-                }
-            }
+            return FileResult.FAILED;
         }
-        logger.println("Copied contents:");
-        logger.println(fileContents);
+        logLevel.logCopied("Copied contents", fileContents, copiedContents, logger);
+        fileContents = copiedContents;
         
         try
         {
+            byte[] bytes = fileContents.getBytes(encoding);
+            if(isIncremental() && hasContents(dstFile, bytes))
+            {
+                logger.println(String.format("%s is not changed...skip.", dstFile.getPath()));
+                return FileResult.UNCHANGED;
+            }
+            if(dryRun)
+            {
+                logger.println(String.format("%s would be written: %d bytes", dstFile.getPath(), bytes.length));
+                return FileResult.WRITTEN;
+            }
             // The directories seem to be automatically created. 
-            FileUtils.writeStringToFile(dstFile, fileContents, encoding);
+            FileUtils.writeByteArrayToFile(dstFile, bytes);
         }
         catch (IOException e)
         {
             logger.println(String.format("Failed to write to %s", dstFile.getPath()));
             e.printStackTrace(logger);
+            return FileResult.FAILED;
+        }
+        
+        return FileResult.WRITTEN;
+    }
+    
+    /**
+     * Tests whether a file has the specified contents.
+     * 
+     * Sizes are compared first not to read files obviously changed.
+     * 
+     * @param file
+     * @param contents
+     * @return whether the file exists and has the contents.
+     * @throws IOException
+     */
+    private static boolean hasContents(File file, byte[] contents) throws IOException
+    {
+        if(!file.isFile() || file.length() != contents.length)
+        {
             return false;
         }
+        return Arrays.equals(FileUtils.readFileToByteArray(file), contents);
+    }
+    
+    /**
+     * Copy a file without decoding it.
+     * 
+     * @param dstFile
+     * @param srcFile
+     * @param logLevel  how much of contents of the file are logged.
+     * @param dryRun    true not to copy the file but only to tell the result.
+     * @param logger
+     * @return the result.
+     */
+    private FileResult copyFile(File dstFile, File srcFile, JobcopyLogLevel logLevel, boolean dryRun, PrintStream logger)
+    {
+        try
+        {
+            // contentEquals compares sizes first.
+            if(isIncremental() && dstFile.isFile() && FileUtils.contentEquals(srcFile, dstFile))
+            {
+                logger.println(String.format("%s is not changed...skip.", dstFile.getPath()));
+                return FileResult.UNCHANGED;
+            }
+            if(dryRun)
+            {
+                logger.println(String.format("%s would be copied as is: %d bytes", dstFile.getPath(), srcFile.length()));
+                return FileResult.WRITTEN;
+            }
+            // Creates parent directories, and copies with FileChannel#transferFrom.
+            // The timestamp is not preserved as the file is written by this copy.
+            FileUtils.copyFile(srcFile, dstFile, false);
+        }
+        catch (IOException e)
+        {
+            logger.println(String.format("Failed to copy %s to %s", srcFile.getPath(), dstFile.getPath()));
+            e.printStackTrace(logger);
+            return FileResult.FAILED;
+        }
+        
+        if(logLevel != JobcopyLogLevel.NONE)
+        {
+            logger.println(String.format("Copied as is: %d bytes", dstFile.length()));
+        }
         
-        return true;
+        return FileResult.WRITTEN;
     }
 
     /**
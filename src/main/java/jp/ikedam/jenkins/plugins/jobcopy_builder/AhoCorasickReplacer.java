@@ -0,0 +1,246 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Replaces multiple strings at once using Aho-Corasick automaton.
+ *
+ * A text is scanned only once however many strings are to be replaced.
+ * Strings are replaced with leftmost-longest semantics:
+ * <ul>
+ * <li>Of matches, the one starting at the leftmost position is replaced.</li>
+ * <li>Of matches starting at the same position, the longest one is replaced.</li>
+ * <li>Of the same strings, the first one in the list is used.</li>
+ * <li>Scanning restarts just after the replaced string, so replaced strings never overlap.</li>
+ * <li>Replaced texts are never replaced again.</li>
+ * </ul>
+ *
+ * Instances are immutable and thread-safe.
+ */
+class AhoCorasickReplacer
+{
+    private static class State
+    {
+        final Map<Character, State> next = new HashMap<Character, State>();
+        final int depth;
+        State failure;
+        /**
+         * the nearest state matching a string in the failure links.
+         */
+        State output;
+        /**
+         * the index of the string matching at this state. -1 if none.
+         */
+        int index = -1;
+
+        State(final int depth)
+        {
+            this.depth = depth;
+        }
+    }
+
+    private final State root = new State(0);
+
+    private final List<String> toStrList;
+
+    private final int maxLength;
+
+    /**
+     * constructor.
+     *
+     * @param fromStrList
+     *            strings to be replaced. must not contain empty strings.
+     * @param toStrList
+     *            strings to be replaced with, corresponding to fromStrList.
+     * @throws IllegalArgumentException
+     *             fromStrList contains an empty string, or the lists have different sizes.
+     */
+    public AhoCorasickReplacer(final List<String> fromStrList, final List<String> toStrList)
+    {
+        if(fromStrList.size() != toStrList.size())
+        {
+            throw new IllegalArgumentException("Lists of from strings and to strings have different sizes");
+        }
+        this.toStrList = toStrList;
+
+        int maxLength = 0;
+        for (int i = 0; i < fromStrList.size(); ++i)
+        {
+            final String fromStr = fromStrList.get(i);
+            if(fromStr == null || fromStr.isEmpty())
+            {
+                throw new IllegalArgumentException("From string is empty");
+            }
+            maxLength = Math.max(maxLength, fromStr.length());
+
+            State state = root;
+            for (int pos = 0; pos < fromStr.length(); ++pos)
+            {
+                final Character c = fromStr.charAt(pos);
+                State nextState = state.next.get(c);
+                if(nextState == null)
+                {
+                    nextState = new State(state.depth + 1);
+                    state.next.put(c, nextState);
+                }
+                state = nextState;
+            }
+            if(state.index < 0)
+            {
+                state.index = i;
+            }
+        }
+        this.maxLength = maxLength;
+
+        buildFailureLinks();
+    }
+
+    private void buildFailureLinks()
+    {
+        final Queue<State> queue = new LinkedList<State>();
+        root.failure = root;
+        for (final State child : root.next.values())
+        {
+            child.failure = root;
+            queue.add(child);
+        }
+
+        while(!queue.isEmpty())
+        {
+            final State state = queue.remove();
+            for (final Map.Entry<Character, State> entry : state.next.entrySet())
+            {
+                final Character c = entry.getKey();
+                final State child = entry.getValue();
+
+                State failure = state.failure;
+                while(failure != root && !failure.next.containsKey(c))
+                {
+                    failure = failure.failure;
+                }
+                final State failureNext = failure.next.get(c);
+                child.failure = (failureNext != null) ? failureNext : root;
+                child.output = (child.failure.index >= 0) ? child.failure : child.failure.output;
+
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Replaces the strings in the text.
+     *
+     * @param text
+     *            the text to replace strings in.
+     * @return the replaced text. The same instance as text if nothing is replaced.
+     */
+    public String replace(final String text)
+    {
+        return replace(text, null);
+    }
+
+    /**
+     * Replaces the strings in the text, counting replacements.
+     *
+     * @param text
+     *            the text to replace strings in.
+     * @param countList
+     *            incremented by the number of replacements for each string. May be null.
+     * @return the replaced text. The same instance as text if nothing is replaced.
+     */
+    public String replace(final String text, final int[] countList)
+    {
+        if(text == null || text.isEmpty() || root.next.isEmpty())
+        {
+            return text;
+        }
+
+        StringBuilder sb = null;
+        // text before this position is already processed.
+        int processed = 0;
+        State state = root;
+        // the best match found so far.
+        int matchStart = -1;
+        int matchLength = 0;
+        int matchIndex = -1;
+
+        for (int pos = 0; pos < text.length(); ++pos)
+        {
+            final Character c = text.charAt(pos);
+            while(state != root && !state.next.containsKey(c))
+            {
+                state = state.failure;
+            }
+            final State nextState = state.next.get(c);
+            state = (nextState != null) ? nextState : root;
+
+            // check all the strings ending at this position.
+            for (State matched = (state.index >= 0) ? state : state.output; matched != null; matched = matched.output)
+            {
+                final int start = pos - matched.depth + 1;
+                if(matchIndex < 0 || start < matchStart || (start == matchStart && matched.depth > matchLength))
+                {
+                    matchStart = start;
+                    matchLength = matched.depth;
+                    matchIndex = matched.index;
+                }
+            }
+
+            // No match starting before or longer than the best match can be found
+            // after scanning the length of the longest string from its start.
+            if(matchIndex >= 0 && (pos - matchStart + 1 >= maxLength || pos == text.length() - 1))
+            {
+                if(sb == null)
+                {
+                    sb = new StringBuilder(text.length());
+                }
+                sb.append(text, processed, matchStart);
+                sb.append(toStrList.get(matchIndex));
+                if(countList != null)
+                {
+                    ++countList[matchIndex];
+                }
+                processed = matchStart + matchLength;
+
+                // restart just after the match.
+                pos = processed - 1;
+                state = root;
+                matchIndex = -1;
+            }
+        }
+
+        if(sb == null)
+        {
+            return text;
+        }
+        sb.append(text, processed, text.length());
+        return sb.toString();
+    }
+}
@@ -105,6 +105,18 @@ public class CopiedjobinfoAction implements Action, Serializable
         return failed;
     }
     
+    private PhaseTimings timings;
+    
+    /**
+     * Returns the time spent in each phase of copying.
+     * 
+     * @return the time spent in each phase. null if not recorded.
+     */
+    public PhaseTimings getTimings()
+    {
+        return timings;
+    }
+    
     /**
      * 
      * constructor.
@@ -114,12 +126,27 @@ public class CopiedjobinfoAction implements Action, Serializable
      * @param failed    whether the job is copied incompletely.
      */
     public CopiedjobinfoAction(TopLevelItem fromItem, TopLevelItem toItem, boolean failed)
+    {
+        this(fromItem, toItem, failed, null);
+    }
+    
+    /**
+     * 
+     * constructor.
+     * 
+     * @param fromItem  job that was copied from.
+     * @param toItem    job that was copied to.
+     * @param failed    whether the job is copied incompletely.
+     * @param timings   the time spent in each phase of copying. may be null.
+     */
+    public CopiedjobinfoAction(TopLevelItem fromItem, TopLevelItem toItem, boolean failed, PhaseTimings timings)
     {
         this.fromJobName = fromItem.getName();
         this.fromUrl = fromItem.getUrl();
         this.toJobName = toItem.getName();
         this.toUrl = toItem.getUrl();
         this.failed = failed;
+        this.timings = timings;
     }
     
     /**
@@ -0,0 +1,420 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.acegisecurity.AccessDeniedException;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+
+import hudson.Extension;
+import hudson.model.AbstractItem;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Items;
+import hudson.model.listeners.ItemListener;
+import hudson.security.ACL;
+import jenkins.model.Jenkins;
+
+/**
+ * A sorted index of full names of all {@link AbstractItem}s in Jenkins.
+ *
+ * Maintained by {@link ListenerImpl}:
+ * built when Jenkins loads items, and updated incrementally
+ * when items are created, copied, deleted, renamed or moved.
+ * This allows listing and searching names by a prefix
+ * without traversing and sorting all items.
+ *
+ * The index contains names of items the current user cannot read.
+ * Callers have to check permissions by looking up items.
+ */
+public class JobNameIndex
+{
+    private static final NavigableSet<String> nameSet = new ConcurrentSkipListSet<String>();
+
+    private static volatile boolean ready = false;
+
+    private JobNameIndex()
+    {
+    }
+
+    /**
+     * Returns whether the index is built.
+     *
+     * @return false before Jenkins loads items.
+     */
+    public static boolean isReady()
+    {
+        return ready;
+    }
+
+    /**
+     * Returns all names in the index.
+     *
+     * @return sorted full names. Unmodifiable.
+     */
+    public static SortedSet<String> getNames()
+    {
+        return Collections.unmodifiableSortedSet(nameSet);
+    }
+
+    /**
+     * Returns names starting with the prefix.
+     *
+     * @param prefix
+     *            the prefix of full names.
+     * @return sorted full names. Unmodifiable.
+     */
+    public static SortedSet<String> getNamesStartingWith(final String prefix)
+    {
+        if(prefix == null || prefix.isEmpty())
+        {
+            return getNames();
+        }
+        return Collections.unmodifiableSortedSet(nameSet.subSet(prefix, true, prefix + Character.MAX_VALUE, false));
+    }
+
+    /**
+     * Returns items the current user can read, whose full names start with the prefix.
+     *
+     * Traverses all items before the index is built.
+     *
+     * @param prefix
+     *            the prefix of full names. null or empty for all items.
+     * @return items sorted by their full names.
+     */
+    public static List<AbstractItem> getItems(final String prefix)
+    {
+        return getItems(prefix, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns items the current user can read, whose full names start with the prefix.
+     *
+     * Traverses all items before the index is built.
+     * Otherwise, looks up only items to return.
+     *
+     * @param prefix
+     *            the prefix of full names. null or empty for all items.
+     * @param limit
+     *            the maximum number of items to return.
+     * @return items sorted by their full names.
+     */
+    public static List<AbstractItem> getItems(final String prefix, final int limit)
+    {
+        final List<AbstractItem> itemList = new ArrayList<AbstractItem>();
+        if(!isReady())
+        {
+            for (final AbstractItem item : Jenkins.getInstance().getAllItems(AbstractItem.class))
+            {
+                if(prefix == null || item.getFullName().startsWith(prefix))
+                {
+                    itemList.add(item);
+                }
+            }
+            Collections.sort(itemList, new Comparator<AbstractItem>()
+            {
+                @Override
+                public int compare(final AbstractItem o1, final AbstractItem o2)
+                {
+                    return o1.getFullName().compareTo(o2.getFullName());
+                }
+            });
+            return (itemList.size() > limit) ? itemList.subList(0, limit) : itemList;
+        }
+        for (final String fullName : getNamesStartingWith(prefix))
+        {
+            if(itemList.size() >= limit)
+            {
+                break;
+            }
+            final AbstractItem item = getItem(fullName);
+            if(item != null)
+            {
+                itemList.add(item);
+            }
+        }
+        return itemList;
+    }
+
+    /**
+     * Looks up an item the current user can read.
+     *
+     * @param fullName
+     *            the full name of the item.
+     * @return the item. null if not exists or not readable.
+     */
+    private static AbstractItem getItem(final String fullName)
+    {
+        AbstractItem item;
+        try
+        {
+            item = Jenkins.getInstance().getItemByFullName(fullName, AbstractItem.class);
+        } catch (final AccessDeniedException e)
+        {
+            // the item is discoverable but not readable.
+            return null;
+        }
+        return (item != null && item.hasPermission(Item.READ)) ? item : null;
+    }
+
+    /**
+     * Returns whether an item with the full name exists.
+     *
+     * @param fullName
+     *            the full name of the item.
+     * @return whether the item exists.
+     */
+    public static boolean contains(final String fullName)
+    {
+        return nameSet.contains(fullName);
+    }
+
+    /**
+     * Replaces all names in the index.
+     *
+     * @param fullNameList
+     *            full names of all items.
+     */
+    static void rebuild(final Iterable<String> fullNameList)
+    {
+        final Set<String> newNameSet = new HashSet<String>();
+        for (final String fullName : fullNameList)
+        {
+            newNameSet.add(fullName);
+        }
+        // add names first not to make existing names disappear temporarily.
+        nameSet.addAll(newNameSet);
+        nameSet.retainAll(newNameSet);
+        ready = true;
+    }
+
+    /**
+     * Adds a name.
+     *
+     * @param fullName
+     *            the full name of the item.
+     */
+    static void add(final String fullName)
+    {
+        nameSet.add(fullName);
+    }
+
+    /**
+     * Removes a name and names of its descendants.
+     *
+     * @param fullName
+     *            the full name of the item.
+     */
+    static void remove(final String fullName)
+    {
+        nameSet.remove(fullName);
+        nameSet.subSet(fullName + "/", true, fullName + "/" + Character.MAX_VALUE, false).clear();
+    }
+
+    /**
+     * Renames a name and names of its descendants.
+     *
+     * @param oldFullName
+     *            the old full name of the item.
+     * @param newFullName
+     *            the new full name of the item.
+     */
+    static void move(final String oldFullName, final String newFullName)
+    {
+        final String oldPrefix = oldFullName + "/";
+        final List<String> descendantList = new ArrayList<String>(
+                nameSet.subSet(oldPrefix, true, oldPrefix + Character.MAX_VALUE, false));
+        add(newFullName);
+        for (final String descendant : descendantList)
+        {
+            add(newFullName + "/" + descendant.substring(oldPrefix.length()));
+        }
+        nameSet.remove(oldFullName);
+        for (final String descendant : descendantList)
+        {
+            nameSet.remove(descendant);
+        }
+    }
+
+    /**
+     * Resolves a path relative to an item group into a full name.
+     *
+     * Works in the same way as {@link JobcopyBuilder#getRelative(String, ItemGroup, Class)},
+     * but only with strings.
+     *
+     * @param contextFullName
+     *            the full name of the item group. Empty for Jenkins itself.
+     * @param pathName
+     *            the path relative to the item group, or an absolute path starting with &quot;/&quot;.
+     * @return the full name. Empty for Jenkins itself. null if the path goes upper than Jenkins.
+     */
+    public static String resolve(final String contextFullName, final String pathName)
+    {
+        final List<String> nameList = new ArrayList<String>();
+        if(!pathName.startsWith("/") && contextFullName != null)
+        {
+            final StringTokenizer tokens = new StringTokenizer(contextFullName, "/");
+            while(tokens.hasMoreTokens())
+            {
+                nameList.add(tokens.nextToken());
+            }
+        }
+        final StringTokenizer tokens = new StringTokenizer(pathName, "/");
+        while(tokens.hasMoreTokens())
+        {
+            final String s = tokens.nextToken();
+            if(s.equals(".."))
+            {
+                if(nameList.isEmpty())
+                {
+                    // can't go up further
+                    return null;
+                }
+                nameList.remove(nameList.size() - 1);
+                continue;
+            }
+            if(s.equals("."))
+            {
+                continue;
+            }
+            nameList.add(s);
+        }
+        final StringBuilder sb = new StringBuilder();
+        for (final String name : nameList)
+        {
+            if(sb.length() > 0)
+            {
+                sb.append('/');
+            }
+            sb.append(name);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Maintains the index.
+     *
+     * Also discards results of validations in {@link JobNameValidationCache}.
+     */
+    @Extension
+    public static class ListenerImpl extends ItemListener
+    {
+        /**
+         * Builds the index.
+         *
+         * @see hudson.model.listeners.ItemListener#onLoaded()
+         */
+        @Override
+        public void onLoaded()
+        {
+            final List<String> fullNameList = new ArrayList<String>();
+            // index all items regardless of permissions of the current user.
+            final SecurityContext orig = ACL.impersonate(ACL.SYSTEM);
+            try
+            {
+                for (final AbstractItem item : Jenkins.getInstance().getAllItems(AbstractItem.class))
+                {
+                    fullNameList.add(item.getFullName());
+                }
+            } finally
+            {
+                SecurityContextHolder.setContext(orig);
+            }
+            rebuild(fullNameList);
+            JobNameValidationCache.getInstance().invalidate();
+        }
+
+        /**
+         * @see hudson.model.listeners.ItemListener#onCreated(hudson.model.Item)
+         */
+        @Override
+        public void onCreated(final Item item)
+        {
+            addWithDescendants(item);
+            JobNameValidationCache.getInstance().invalidate();
+        }
+
+        /**
+         * @see hudson.model.listeners.ItemListener#onDeleted(hudson.model.Item)
+         */
+        @Override
+        public void onDeleted(final Item item)
+        {
+            remove(item.getFullName());
+            JobNameValidationCache.getInstance().invalidate();
+        }
+
+        /**
+         * Called both for renaming and moving.
+         *
+         * @see hudson.model.listeners.ItemListener#onLocationChanged(hudson.model.Item, java.lang.String,
+         *      java.lang.String)
+         */
+        @Override
+        public void onLocationChanged(final Item item, final String oldFullName, final String newFullName)
+        {
+            JobNameValidationCache.getInstance().invalidate();
+            if(!(item instanceof AbstractItem))
+            {
+                return;
+            }
+            move(oldFullName, newFullName);
+        }
+
+        private void addWithDescendants(final Item item)
+        {
+            if(!(item instanceof AbstractItem))
+            {
+                return;
+            }
+            add(item.getFullName());
+            if(!(item instanceof ItemGroup))
+            {
+                return;
+            }
+            final SecurityContext orig = ACL.impersonate(ACL.SYSTEM);
+            try
+            {
+                for (final AbstractItem child : Items.getAllItems((ItemGroup<?>) item, AbstractItem.class))
+                {
+                    add(child.getFullName());
+                }
+            } finally
+            {
+                SecurityContextHolder.setContext(orig);
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches what job names refer to, for validations of job name fields.
+ *
+ * Validations are requested for each input in configuration pages,
+ * and this saves looking up the item tree for each of them.
+ * A result is cached for each user and each full name,
+ * as the lookup depends on permissions of the user.
+ *
+ * All entries are discarded when items are created, deleted, renamed or moved
+ * (see {@link JobNameIndex.ListenerImpl}).
+ * Entries also expire in a short time as changes of permissions are not notified.
+ * Thread-safe.
+ */
+class JobNameValidationCache
+{
+    /**
+     * The maximum number of cached results.
+     */
+    public static final int MAX_SIZE = 1024;
+
+    /**
+     * The default time to live of entries, in seconds.
+     *
+     * Can be changed with the system property
+     * <code>jp.ikedam.jenkins.plugins.jobcopy_builder.JobNameValidationCache.ttl</code>.
+     */
+    public static final int DEFAULT_TTL = 10;
+
+    private static final JobNameValidationCache INSTANCE = new JobNameValidationCache(
+            MAX_SIZE,
+            TimeUnit.SECONDS.toMillis(Integer.getInteger(JobNameValidationCache.class.getName() + ".ttl", DEFAULT_TTL)));
+
+    /**
+     * Returns the cache shared in the Jenkins instance.
+     *
+     * @return the shared cache.
+     */
+    public static JobNameValidationCache getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * What a job name refers to.
+     */
+    public static enum Kind
+    {
+        /**
+         * No item, or an item the user cannot read.
+         */
+        NOT_FOUND,
+        /**
+         * An item that can be copied.
+         */
+        ABSTRACT_ITEM,
+        /**
+         * An item that cannot be copied.
+         */
+        OTHER
+    }
+
+    private final long ttlMillis;
+
+    private final Map<String, Entry> entryMap;
+
+    private long generation = 0;
+
+    private static class Entry
+    {
+        public final Kind kind;
+
+        public final long expiresAt;
+
+        public Entry(final Kind kind, final long expiresAt)
+        {
+            this.kind = kind;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * constructor.
+     *
+     * @param maxSize
+     *            the maximum number of cached results.
+     * @param ttlMillis
+     *            the time to live of entries, in milliseconds.
+     */
+    public JobNameValidationCache(final int maxSize, final long ttlMillis)
+    {
+        this.entryMap = new BoundedLruMap<String, Entry>(maxSize);
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns the current time. Overridden in tests.
+     *
+     * @return the current time in milliseconds.
+     */
+    protected long currentTimeMillis()
+    {
+        return System.currentTimeMillis();
+    }
+
+    private static String getKey(final String userName, final String fullName)
+    {
+        // '\0' appears neither in user names nor in job names.
+        return String.format("%s\0%s", userName, fullName);
+    }
+
+    /**
+     * Returns what the job name referred to.
+     *
+     * @param userName
+     *            the name of the user who looked up the job.
+     * @param fullName
+     *            the full name of the job.
+     * @return what the job name referred to. null if not cached or expired.
+     */
+    public Kind get(final String userName, final String fullName)
+    {
+        final String key = getKey(userName, fullName);
+        synchronized (entryMap)
+        {
+            final Entry entry = entryMap.get(key);
+            if(entry == null)
+            {
+                return null;
+            }
+            if(entry.expiresAt <= currentTimeMillis())
+            {
+                entryMap.remove(key);
+                return null;
+            }
+            return entry.kind;
+        }
+    }
+
+    /**
+     * Returns the current generation, which is changed with {@link #invalidate()}.
+     *
+     * Retrieve this before looking up a job, and pass it to
+     * {@link #put(long, String, String, Kind)}.
+     *
+     * @return the current generation.
+     */
+    public long getGeneration()
+    {
+        synchronized (entryMap)
+        {
+            return generation;
+        }
+    }
+
+    /**
+     * Caches what the job name refers to.
+     *
+     * Not cached if the cache is invalidated after the job is looked up,
+     * as the result may be already outdated.
+     *
+     * @param generation
+     *            the value of {@link #getGeneration()} before the job is looked up.
+     * @param userName
+     *            the name of the user who looked up the job.
+     * @param fullName
+     *            the full name of the job.
+     * @param kind
+     *            what the job name refers to.
+     */
+    public void put(final long generation, final String userName, final String fullName, final Kind kind)
+    {
+        synchronized (entryMap)
+        {
+            if(generation != this.generation)
+            {
+                return;
+            }
+            entryMap.put(getKey(userName, fullName), new Entry(kind, currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    /**
+     * Discards all entries.
+     */
+    public void invalidate()
+    {
+        synchronized (entryMap)
+        {
+            entryMap.clear();
+            ++generation;
+        }
+    }
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return the number of entries.
+     */
+    public int size()
+    {
+        synchronized (entryMap)
+        {
+            return entryMap.size();
+        }
+    }
+}
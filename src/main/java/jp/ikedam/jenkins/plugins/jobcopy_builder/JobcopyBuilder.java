@@ -25,8 +25,11 @@ package jp.ikedam.jenkins.plugins.jobcopy_builder;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import hudson.Extension;
 import hudson.XmlFile;
@@ -36,12 +39,16 @@ import hudson.DescriptorExtensionList;
 import hudson.matrix.MatrixProject;
 import hudson.model.Item;
 import hudson.model.ItemGroup;
+import hudson.model.Items;
 import hudson.model.TopLevelItem;
 import hudson.model.BuildListener;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractItem;
 import hudson.model.AbstractProject;
 import hudson.model.Descriptor;
+import hudson.model.AutoCompletionCandidates;
+import hudson.model.Failure;
+import hudson.security.ACL;
 import hudson.util.ComboBoxModel;
 import hudson.util.FormValidation;
 import hudson.tasks.Builder;
@@ -49,17 +56,25 @@ import hudson.tasks.BuildStepDescriptor;
 import jenkins.model.ModifiableTopLevelItemGroup;
 import jenkins.model.Jenkins;
 
+import org.acegisecurity.Authentication;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
 
+import java.io.File;
 import java.io.InputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
 import java.io.Serializable;
 
 import javax.xml.transform.Source;
@@ -156,6 +171,145 @@ public class JobcopyBuilder extends Builder implements Serializable
         return additionalFilesetList;
     }
 
+    private String bulkTargets;
+    
+    /**
+     * Returns the list of jobs to be copied to in the bulk mode.
+     * 
+     * One job per line, in the format NAME[,KEY=VALUE...].
+     * Variables are defined only when copying to that job.
+     * When specified, {@link #getToJobName()} is ignored.
+     * 
+     * @return the list of jobs to be copied to. null if not in the bulk mode.
+     */
+    public String getBulkTargets()
+    {
+        return bulkTargets;
+    }
+    
+    /**
+     * Sets the list of jobs to be copied to in the bulk mode.
+     * 
+     * @param bulkTargets the list of jobs to be copied to, one per line.
+     */
+    @DataBoundSetter
+    public void setBulkTargets(String bulkTargets)
+    {
+        this.bulkTargets = StringUtils.trimToNull(bulkTargets);
+    }
+    
+    /**
+     * Returns whether copies to multiple jobs.
+     * 
+     * @return whether bulk targets are specified.
+     */
+    public boolean isBulk()
+    {
+        return !StringUtils.isBlank(getBulkTargets());
+    }
+    
+    private JobcopyLogLevel logLevel;
+    
+    /**
+     * Returns how much of configurations and files are logged.
+     * 
+     * @return the log level. {@link JobcopyLogLevel#SUMMARY} if not specified.
+     */
+    public JobcopyLogLevel getLogLevel()
+    {
+        return (logLevel != null)?logLevel:JobcopyLogLevel.SUMMARY;
+    }
+    
+    /**
+     * Sets how much of configurations and files are logged.
+     * 
+     * @param logLevel the log level.
+     */
+    @DataBoundSetter
+    public void setLogLevel(JobcopyLogLevel logLevel)
+    {
+        this.logLevel = logLevel;
+    }
+    
+    private int parallelism = 1;
+    
+    /**
+     * Returns the maximum number of jobs copied at the same time in the bulk mode.
+     * 
+     * @return the maximum number of jobs copied at the same time. 1 or more.
+     */
+    public int getParallelism()
+    {
+        return Math.max(parallelism, 1);
+    }
+    
+    /**
+     * Sets the maximum number of jobs copied at the same time in the bulk mode.
+     * 
+     * @param parallelism the maximum number of jobs copied at the same time. 1 or less to copy one by one.
+     */
+    @DataBoundSetter
+    public void setParallelism(int parallelism)
+    {
+        this.parallelism = parallelism;
+    }
+    
+    private boolean cacheTransformations;
+    
+    /**
+     * Returns whether to cache transformed configurations.
+     * 
+     * @return whether to cache transformed configurations.
+     */
+    public boolean isCacheTransformations()
+    {
+        return cacheTransformations;
+    }
+    
+    /**
+     * Sets whether to cache transformed configurations.
+     * 
+     * When set, configurations transformed with operations are cached in memory,
+     * and the same configuration with the same operations and the same variables
+     * is not parsed nor transformed again.
+     * See {@link TransformationCache} for details.
+     * 
+     * @param cacheTransformations whether to cache transformed configurations.
+     */
+    @DataBoundSetter
+    public void setCacheTransformations(boolean cacheTransformations)
+    {
+        this.cacheTransformations = cacheTransformations;
+    }
+    
+    private boolean dryRun;
+    
+    /**
+     * Returns whether only to report what would be done without copying jobs.
+     * 
+     * @return whether only to report what would be done.
+     */
+    public boolean isDryRun()
+    {
+        return dryRun;
+    }
+    
+    /**
+     * Sets whether only to report what would be done without copying jobs.
+     * 
+     * When set, jobs are looked up and operations are performed
+     * to configurations and additional files as usual,
+     * but no jobs are created, updated nor reloaded, and no files are written.
+     * Whether each job would be created, updated or not changed is logged instead.
+     * 
+     * @param dryRun whether only to report what would be done.
+     */
+    @DataBoundSetter
+    public void setDryRun(boolean dryRun)
+    {
+        this.dryRun = dryRun;
+    }
+    
     /**
      * Constructor to instantiate from parameters in the job configuration page.
      * 
@@ -182,193 +336,1123 @@ public class JobcopyBuilder extends Builder implements Serializable
     }
     
     /**
-     * Performs the build step.
+     * Performs the build step.
+     * 
+     * @param build
+     * @param launcher
+     * @param listener
+     * @return  whether the process succeeded.
+     * @throws IOException
+     * @throws InterruptedException
+     * @see hudson.tasks.BuildStepCompatibilityLayer#perform(hudson.model.AbstractBuild, hudson.Launcher, hudson.model.BuildListener)
+     */
+    @Override
+    public boolean perform(final AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+        throws IOException, InterruptedException
+    {
+        final ItemGroup<?> context = build.getProject().getRootProject().getParent();
+        EnvVars env = build.getEnvironment(listener);
+        PrintStream logger = listener.getLogger();
+        
+        if(StringUtils.isBlank(getFromJobName()))
+        {
+            logger.println("From Job Name is not specified");
+            return false;
+        }
+        
+        List<JobcopyTarget> targetList;
+        if(isBulk())
+        {
+            try
+            {
+                // Bulk Targets can be given with a build parameter.
+                targetList = JobcopyTarget.parse(env.expand(getBulkTargets()));
+            }
+            catch(IllegalArgumentException e)
+            {
+                logger.println(String.format("Error in Bulk Targets: %s", e.getMessage()));
+                return false;
+            }
+            if(targetList.isEmpty())
+            {
+                logger.println("No targets are specified in Bulk Targets");
+                return false;
+            }
+        }
+        else
+        {
+            if(StringUtils.isBlank(getToJobName()))
+            {
+                logger.println("To Job Name is not specified");
+                return false;
+            }
+            targetList = Collections.singletonList(
+                    new JobcopyTarget(getToJobName(), Collections.<String, String>emptyMap())
+            );
+        }
+        
+        // Expand the variable expressions in job names.
+        final String fromJobNameExpanded = env.expand(getFromJobName());
+        
+        if(StringUtils.isBlank(fromJobNameExpanded))
+        {
+            logger.println("From Job Name got to a blank");
+            return false;
+        }
+        
+        // Time spent in phases shared by all targets.
+        final PhaseTimings timings = new PhaseTimings();
+        long t = System.nanoTime();
+        
+        // Reteive the job to be copied from.
+        final TopLevelItem fromJob = getRelative(fromJobNameExpanded, context, TopLevelItem.class);
+        t = timings.record("Look up the job copied from", t);
+        
+        if(fromJob == null)
+        {
+            logger.println(String.format("Error: Item '%s' was not found.", fromJobNameExpanded));
+            JobcopyMetrics.getInstance().recordFailure(JobcopyMetrics.FailureCause.SOURCE_NOT_FOUND);
+            return false;
+        }
+        else if(!(fromJob instanceof AbstractItem))
+        {
+            logger.println(String.format("Error: Item '%s' was found, but cannot be copied (does not support AbstractItem).", fromJobNameExpanded));
+            JobcopyMetrics.getInstance().recordFailure(JobcopyMetrics.FailureCause.SOURCE_NOT_COPYABLE);
+            return false;
+        }
+        
+        // Retrieve the config.xml of the job copied from.
+        // This is done only once even in the bulk mode.
+        logger.println(String.format("Fetching configuration of %s...", fromJobNameExpanded));
+        
+        XmlFile file = ((AbstractItem)fromJob).getConfigFile();
+        String jobConfigXmlString = file.asString();
+        String encoding = file.sniffEncoding();
+        t = timings.record("Read the configuration", t);
+        getLogLevel().logOriginal("Original xml", jobConfigXmlString, logger);
+        
+        final PreparedConfig template = new PreparedConfig(
+                new JobcopyOperationPipeline(getJobcopyOperationList()),
+                jobConfigXmlString,
+                encoding,
+                isCacheTransformations()
+                        ?new TransformationCache.Source(
+                                jobConfigXmlString,
+                                encoding,
+                                Items.XSTREAM2.toXML(getJobcopyOperationList())
+                        )
+                        :null
+        );
+        if(!isCacheTransformations() && template.getTemplate(logger) == null)
+        {
+            // The configuration is always parsed without the cache.
+            // Parse it here to fail before copying anything.
+            JobcopyMetrics.getInstance().recordFailure(JobcopyMetrics.FailureCause.OPERATION_FAILED);
+            return false;
+        }
+        if(!isCacheTransformations())
+        {
+            timings.record("Prepare the configuration", t);
+        }
+        
+        if(isDryRun())
+        {
+            boolean result = plan(context, fromJob, fromJobNameExpanded, template, targetList, env, logger);
+            template.logCacheStatistics(logger);
+            return result;
+        }
+        
+        if(!isBulk())
+        {
+            CopiedjobinfoAction action;
+            try
+            {
+                action = copyTo(context, fromJob, fromJobNameExpanded, template, targetList.get(0).getJobName(), env, timings, logger);
+            }
+            catch(IOException e)
+            {
+                JobcopyMetrics.getInstance().recordFailure(JobcopyMetrics.FailureCause.EXCEPTION);
+                throw e;
+            }
+            template.logCacheStatistics(logger);
+            if(action == null)
+            {
+                return false;
+            }
+            build.addAction(action);
+            return true;
+        }
+        
+        // Shared phases are shown in each target, but not counted in it.
+        final PhaseTimings sharedTimings = timings.toShared();
+        List<ParallelTaskRunner.Task<CopiedjobinfoAction>> taskList = new ArrayList<ParallelTaskRunner.Task<CopiedjobinfoAction>>(targetList.size());
+        Set<String> toJobNameSet = new HashSet<String>();
+        boolean duplicated = false;
+        // worker threads run with the same authentication as this thread.
+        final Authentication auth = Jenkins.getAuthentication();
+        for(final JobcopyTarget target: targetList)
+        {
+            final EnvVars targetEnv = new EnvVars(env);
+            targetEnv.putAll(target.getVariables());
+            if(!toJobNameSet.add(targetEnv.expand(target.getJobName())))
+            {
+                duplicated = true;
+            }
+            taskList.add(new ParallelTaskRunner.Task<CopiedjobinfoAction>()
+            {
+                @Override
+                public CopiedjobinfoAction call(PrintStream taskLogger) throws InterruptedException
+                {
+                    SecurityContext orig = ACL.impersonate(auth);
+                    try
+                    {
+                        return copyTo(context, fromJob, fromJobNameExpanded, template, target.getJobName(), targetEnv, sharedTimings, taskLogger);
+                    }
+                    catch(IOException e)
+                    {
+                        // go on to the next target.
+                        JobcopyMetrics.getInstance().recordFailure(JobcopyMetrics.FailureCause.EXCEPTION);
+                        taskLogger.println(String.format("Failed to copy to %s", target.getJobName()));
+                        e.printStackTrace(taskLogger);
+                        return null;
+                    }
+                    finally
+                    {
+                        SecurityContextHolder.setContext(orig);
+                    }
+                }
+            });
+        }
+        
+        int parallelism = getParallelism();
+        if(duplicated && parallelism > 1)
+        {
+            // Copying to the same job concurrently results in conflicts.
+            logger.println("Bulk Targets contain the same job more than once: copying one by one");
+            parallelism = 1;
+        }
+        
+        List<CopiedjobinfoAction> actionList;
+        if(!duplicated)
+        {
+            actionList = copyStaged(context, fromJob, fromJobNameExpanded, template, targetList, env, sharedTimings, parallelism, logger);
+        }
+        else
+        {
+            // A job copied more than once must be transformed after the previous copy is written.
+            actionList = ParallelTaskRunner.run(
+                    taskList,
+                    parallelism,
+                    String.format("Jobcopy from %s", fromJobNameExpanded),
+                    logger
+            );
+        }
+        
+        // add actions in the order of targets.
+        int succeeded = 0;
+        for(CopiedjobinfoAction action: actionList)
+        {
+            if(action != null)
+            {
+                build.addAction(action);
+                ++succeeded;
+            }
+        }
+        logger.println(String.format("Copied %d of %d jobs", succeeded, targetList.size()));
+        template.logCacheStatistics(logger);
+        
+        return (succeeded == targetList.size());
+    }
+    
+    /**
+     * Copies the prepared configuration to a job.
+     * 
+     * Can be called from multiple threads at the same time for different jobs.
+     * 
+     * @param context       the context to resolve job names.
+     * @param fromJob       the job copied from.
+     * @param fromJobNameExpanded
+     *                      the name of the job copied from.
+     * @param template      the configuration of the job copied from.
+     * @param toJobName     the name of the job to be copied to. may contains variable expressions.
+     * @param env           variables for the job to be copied to.
+     * @param baseTimings   the time spent in phases shared by all targets.
+     * @param logger        the output stream to log.
+     * @return  the information of the copied jobs to be added to the build. null if failed.
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private CopiedjobinfoAction copyTo(
+            ItemGroup<?> context,
+            TopLevelItem fromJob,
+            String fromJobNameExpanded,
+            PreparedConfig template,
+            String toJobName,
+            EnvVars env,
+            PhaseTimings baseTimings,
+            PrintStream logger
+    ) throws IOException, InterruptedException
+    {
+        JobcopyEvents.CopyEvent event = JobcopyEvents.getInstance().newCopyEvent();
+        event.begin();
+        CopiedjobinfoAction action = null;
+        try
+        {
+            action = doCopyTo(context, fromJob, fromJobNameExpanded, template, toJobName, env, baseTimings, event, logger);
+            return action;
+        }
+        finally
+        {
+            event.commit(fromJobNameExpanded, env.expand(toJobName), action != null && !action.isFailed());
+        }
+    }
+    
+    /**
+     * Copies the prepared configuration to a job.
+     * 
+     * @param event         the event to record the size of the configuration.
+     * @see #copyTo(ItemGroup, TopLevelItem, String, PreparedConfig, String, EnvVars, PhaseTimings, PrintStream)
+     */
+    private CopiedjobinfoAction doCopyTo(
+            ItemGroup<?> context,
+            TopLevelItem fromJob,
+            String fromJobNameExpanded,
+            PreparedConfig template,
+            String toJobName,
+            EnvVars env,
+            PhaseTimings baseTimings,
+            JobcopyEvents.CopyEvent event,
+            PrintStream logger
+    ) throws IOException, InterruptedException
+    {
+        StagedCopy staged = stage(context, fromJob, fromJobNameExpanded, template, toJobName, env, baseTimings, logger);
+        if(staged == null)
+        {
+            return null;
+        }
+        event.setBytes(staged.jobConfigXmlBytes.length);
+        return apply(context, staged, logger);
+    }
+    
+    /**
+     * Copies the prepared configuration to jobs in the bulk mode.
+     * 
+     * Configurations for all the targets are looked up and transformed first,
+     * at most the specified number of targets at the same time.
+     * Nothing is written to jobs until all of them are transformed.
+     * Then they are created or updated one by one.
+     * A target failed to be copied does not prevent other targets from being copied.
+     * 
+     * @param context       the context to resolve job names.
+     * @param fromJob       the job copied from.
+     * @param fromJobNameExpanded
+     *                      the name of the job copied from.
+     * @param template      the configuration of the job copied from.
+     * @param targetList    the jobs to be copied to. must not contain the same job more than once.
+     * @param env           variables defined in the build.
+     * @param baseTimings   the time spent in phases shared by all targets.
+     * @param parallelism   the maximum number of targets transformed at the same time.
+     * @param logger        the output stream to log.
+     * @return  the information of the copied jobs in the order of targets. null for failed targets.
+     * @throws InterruptedException
+     */
+    private List<CopiedjobinfoAction> copyStaged(
+            final ItemGroup<?> context,
+            final TopLevelItem fromJob,
+            final String fromJobNameExpanded,
+            final PreparedConfig template,
+            List<JobcopyTarget> targetList,
+            EnvVars env,
+            final PhaseTimings baseTimings,
+            int parallelism,
+            PrintStream logger
+    ) throws InterruptedException
+    {
+        List<ParallelTaskRunner.Task<StagedCopy>> taskList = new ArrayList<ParallelTaskRunner.Task<StagedCopy>>(targetList.size());
+        // worker threads run with the same authentication as this thread.
+        final Authentication auth = Jenkins.getAuthentication();
+        for(final JobcopyTarget target: targetList)
+        {
+            final EnvVars targetEnv = new EnvVars(env);
+            targetEnv.putAll(target.getVariables());
+            taskList.add(new ParallelTaskRunner.Task<StagedCopy>()
+            {
+                @Override
+                public StagedCopy call(PrintStream taskLogger)
+                {
+                    SecurityContext orig = ACL.impersonate(auth);
+                    try
+                    {
+                        return stage(context, fromJob, fromJobNameExpanded, template, target.getJobName(), targetEnv, baseTimings, taskLogger);
+                    }
+                    catch(IOException e)
+                    {
+                        // go on to the next target.
+                        JobcopyMetrics.getInstance().recordFailure(JobcopyMetrics.FailureCause.EXCEPTION);
+                        taskLogger.println(String.format("Failed to copy to %s", target.getJobName()));
+                        e.printStackTrace(taskLogger);
+                        return null;
+                    }
+                    finally
+                    {
+                        SecurityContextHolder.setContext(orig);
+                    }
+                }
+            });
+        }
+        
+        List<StagedCopy> stagedList = ParallelTaskRunner.run(
+                taskList,
+                parallelism,
+                String.format("Jobcopy from %s", fromJobNameExpanded),
+                logger
+        );
+        
+        int stagedCount = 0;
+        for(StagedCopy s: stagedList)
+        {
+            if(s != null)
+            {
+                ++stagedCount;
+            }
+        }
+        logger.println(String.format("Applying %d of %d configurations", stagedCount, stagedList.size()));
+        
+        List<CopiedjobinfoAction> actionList = new ArrayList<CopiedjobinfoAction>(stagedList.size());
+        for(StagedCopy s: stagedList)
+        {
+            if(s == null)
+            {
+                actionList.add(null);
+                continue;
+            }
+            JobcopyEvents.CopyEvent event = JobcopyEvents.getInstance().newCopyEvent();
+            event.begin();
+            event.setBytes(s.jobConfigXmlBytes.length);
+            CopiedjobinfoAction action = null;
+            try
+            {
+                action = apply(context, s, logger);
+            }
+            catch(Exception e)
+            {
+                // go on to the next target.
+                JobcopyMetrics.getInstance().recordFailure(JobcopyMetrics.FailureCause.EXCEPTION);
+                logger.println(String.format("Failed to copy to %s", s.toJobNameExpanded));
+                e.printStackTrace(logger);
+            }
+            finally
+            {
+                event.commit(fromJobNameExpanded, s.toJobNameExpanded, action != null && !action.isFailed());
+            }
+            actionList.add(action);
+        }
+        
+        return actionList;
+    }
+    
+    /**
+     * A configuration transformed for a job, not written to the job yet.
+     */
+    private static class StagedCopy
+    {
+        private final TopLevelItem fromJob;
+        private final TopLevelItem toJob;
+        private final String toJobNameExpanded;
+        private final EnvVars env;
+        private final String jobConfigXmlString;
+        private final byte[] jobConfigXmlBytes;
+        private final String encoding;
+        private final PhaseTimings timings;
+        private final long stagedNanos;
+        
+        public StagedCopy(
+                TopLevelItem fromJob,
+                TopLevelItem toJob,
+                String toJobNameExpanded,
+                EnvVars env,
+                String jobConfigXmlString,
+                byte[] jobConfigXmlBytes,
+                String encoding,
+                PhaseTimings timings,
+                long stagedNanos
+        )
+        {
+            this.fromJob = fromJob;
+            this.toJob = toJob;
+            this.toJobNameExpanded = toJobNameExpanded;
+            this.env = env;
+            this.jobConfigXmlString = jobConfigXmlString;
+            this.jobConfigXmlBytes = jobConfigXmlBytes;
+            this.encoding = encoding;
+            this.timings = timings;
+            this.stagedNanos = stagedNanos;
+        }
+    }
+    
+    /**
+     * Looks up the job to be copied to, and transforms the configuration for it.
+     * 
+     * Nothing is written to the job.
+     * Can be called from multiple threads at the same time.
+     * 
+     * @return  the transformed configuration. null if failed.
+     * @throws IOException
+     * @see #copyTo(ItemGroup, TopLevelItem, String, PreparedConfig, String, EnvVars, PhaseTimings, PrintStream)
+     */
+    private StagedCopy stage(
+            ItemGroup<?> context,
+            TopLevelItem fromJob,
+            String fromJobNameExpanded,
+            PreparedConfig template,
+            String toJobName,
+            EnvVars env,
+            PhaseTimings baseTimings,
+            PrintStream logger
+    ) throws IOException
+    {
+        JobcopyMetrics metrics = JobcopyMetrics.getInstance();
+        PhaseTimings timings = new PhaseTimings(baseTimings);
+        long start = System.nanoTime();
+        long t = start;
+        String toJobNameExpanded = env.expand(toJobName);
+        
+        if(StringUtils.isBlank(toJobNameExpanded))
+        {
+            logger.println("To Job Name got to a blank");
+            metrics.recordFailure(JobcopyMetrics.FailureCause.INVALID_TARGET);
+            return null;
+        }
+        
+        logger.println(String.format("Copying %s to %s", fromJobNameExpanded, toJobNameExpanded));
+        
+        // Check whether the job to be copied to is already exists.
+        TopLevelItem toJob = getRelative(toJobNameExpanded, context, TopLevelItem.class);
+        t = timings.record("Look up the job copied to", t);
+        if(toJob != null){
+            logger.println(String.format("Already exists: %s", toJobNameExpanded));
+            if(!isOverwrite()){
+                metrics.recordFailure(JobcopyMetrics.FailureCause.INVALID_TARGET);
+                return null;
+            }
+            if(!(toJob instanceof AbstractItem))
+            {
+                logger.println("Only AbstractItem can be overwritten: please delete manually, and run copy again");
+                metrics.recordFailure(JobcopyMetrics.FailureCause.INVALID_TARGET);
+                return null;
+            }
+        }
+        
+        String encoding = template.getEncoding();
+        
+        // Apply additional operations to the retrieved XML.
+        // Each operation is recorded inside.
+        String jobConfigXmlString = template.perform(env, timings, logger);
+        if(jobConfigXmlString == null)
+        {
+            metrics.recordFailure(JobcopyMetrics.FailureCause.OPERATION_FAILED);
+            return null;
+        }
+        getLogLevel().logCopied("Copied xml", template.getXmlString(), jobConfigXmlString, logger);
+        byte[] jobConfigXmlBytes = jobConfigXmlString.getBytes(encoding);
+        
+        return new StagedCopy(
+                fromJob,
+                toJob,
+                toJobNameExpanded,
+                env,
+                jobConfigXmlString,
+                jobConfigXmlBytes,
+                encoding,
+                timings,
+                System.nanoTime() - start
+        );
+    }
+    
+    /**
+     * Writes a transformed configuration to the job.
+     * 
+     * Creates the job if it does not exist.
+     * 
+     * @param context       the context to resolve job names.
+     * @param staged        the configuration transformed with {@link #stage(ItemGroup, TopLevelItem, String, PreparedConfig, String, EnvVars, PhaseTimings, PrintStream)}.
+     * @param logger        the output stream to log.
+     * @return  the information of the copied jobs to be added to the build. null if failed.
+     * @throws IOException
+     */
+    private CopiedjobinfoAction apply(ItemGroup<?> context, StagedCopy staged, PrintStream logger) throws IOException
+    {
+        JobcopyMetrics metrics = JobcopyMetrics.getInstance();
+        TopLevelItem fromJob = staged.fromJob;
+        TopLevelItem toJob = staged.toJob;
+        String toJobNameExpanded = staged.toJobNameExpanded;
+        EnvVars env = staged.env;
+        String jobConfigXmlString = staged.jobConfigXmlString;
+        byte[] jobConfigXmlBytes = staged.jobConfigXmlBytes;
+        String encoding = staged.encoding;
+        PhaseTimings timings = staged.timings;
+        long start = System.nanoTime();
+        long t = start;
+        
+        if(toJob == null)
+        {
+            // Create the job copied to.
+            logger.println(String.format("Creating %s", toJobNameExpanded));
+            InputStream is = new ByteArrayInputStream(jobConfigXmlBytes); 
+            ItemGroup<?> toContext = context;
+            if(toJobNameExpanded.lastIndexOf('/')  >= 0)
+            {
+                int pos = toJobNameExpanded.lastIndexOf('/');
+                String parentName = toJobNameExpanded.substring(0, pos);
+                toJobNameExpanded = toJobNameExpanded.substring(pos + 1);
+                
+                toContext = getRelative(parentName, context, ItemGroup.class);
+                if(toContext == null)
+                {
+                    logger.println(String.format("Error: Target folder '%s' was not found.", parentName));
+                    metrics.recordFailure(JobcopyMetrics.FailureCause.CREATE_FAILED);
+                    return null;
+                }
+            }
+            
+            if(!(toContext instanceof ModifiableTopLevelItemGroup))
+            {
+                logger.println(String.format("Error: Target folder '%s' does not support ModifiableTopLevelItemGroup", toContext.getFullName()));
+                metrics.recordFailure(JobcopyMetrics.FailureCause.CREATE_FAILED);
+                return null;
+            }
+            
+            toJob = ((ModifiableTopLevelItemGroup)toContext).createProjectFromXML(toJobNameExpanded, is);
+            if(toJob == null)
+            {
+                logger.println(String.format("Failed to create %s", toJobNameExpanded));
+                metrics.recordFailure(JobcopyMetrics.FailureCause.CREATE_FAILED);
+                return null;
+            }
+            t = timings.record("Create the job", t);
+        }
+        else
+        {
+            boolean notChanged = isConfigNotChanged((AbstractItem)toJob, jobConfigXmlString, encoding, logger);
+            t = timings.record("Compare the configuration", t);
+            if(notChanged)
+            {
+                // Updating reloads the job, and is expensive.
+                logger.println(String.format("Not changed: %s", toJobNameExpanded));
+            }
+            else
+            {
+                logger.println(String.format("Updating %s", toJobNameExpanded));
+                AbstractItem target = (AbstractItem)toJob;
+                InputStream is = new ByteArrayInputStream(jobConfigXmlBytes);
+                
+                String combinationFilter = null;
+                if(target instanceof MatrixProject)
+                {
+                    MatrixProject matrix = (MatrixProject)target;
+                    // Workaround for the case combinationFilter is removed.
+                    // In that case, updateByXml does not update combinationFilter,
+                    // for combinationFilter is not written in XML.
+                    // So reset it here in advance. 
+                    // It will be overwritten if defined.
+                    combinationFilter = matrix.getCombinationFilter();
+                    matrix.setCombinationFilter(null);
+                }
+                
+                try
+                {
+                    target.updateByXml((Source)new StreamSource(is));
+                }
+                catch(IOException e)
+                {
+                    if(combinationFilter != null)
+                    {
+                        // recover combinationFilter.
+                        MatrixProject matrix = (MatrixProject)target;
+                        matrix.setCombinationFilter(combinationFilter);
+                    }
+                    throw e;
+                }
+                long updated = timings.record("Update the job", t);
+                metrics.recordUpdate(updated - t);
+                t = updated;
+            }
+        }
+        
+        // Additional files are copied only after the job is created or updated successfully,
+        // not to leave files changed for a job whose configuration is not.
+        // The job has to be reloaded to load them, only when any of them is written.
+        List<AdditionalFileset.FileResult> resultList = copyAdditionalFiles(toJob, fromJob, env, logger);
+        if(getAdditionalFilesetList() != null && !getAdditionalFilesetList().isEmpty())
+        {
+            t = timings.record("Copy additional files", t);
+        }
+        boolean failed = resultList.contains(AdditionalFileset.FileResult.FAILED);
+        
+        if(resultList.contains(AdditionalFileset.FileResult.WRITTEN))
+        {
+            // Do null update to reload the configuration.
+            AbstractItem target = (AbstractItem)toJob;
+            target.updateByXml((Source)new StreamSource(target.getConfigFile().readRaw()));
+            long reloaded = timings.record("Reload the job", t);
+            metrics.recordUpdate(reloaded - t);
+        }
+        
+        if(failed)
+        {
+            metrics.recordFailure(JobcopyMetrics.FailureCause.ADDITIONAL_FILES_FAILED);
+        }
+        metrics.recordCopy(staged.stagedNanos + System.nanoTime() - start, jobConfigXmlBytes.length);
+        
+        // the information of jobs copied from and to.
+        return new CopiedjobinfoAction(fromJob, toJob, failed, timings);
+    }
+    
+    /**
+     * Reports what would be done for targets without copying jobs.
      * 
-     * @param build
-     * @param launcher
-     * @param listener
-     * @return  whether the process succeeded.
-     * @throws IOException
+     * @param context       the context to resolve job names.
+     * @param fromJob       the job copied from.
+     * @param fromJobNameExpanded
+     *                      the name of the job copied from.
+     * @param template      the configuration of the job copied from.
+     * @param targetList    the jobs to be copied to.
+     * @param env           variables defined in the build.
+     * @param logger        the output stream to log.
+     * @return  whether all the targets would be copied successfully.
      * @throws InterruptedException
-     * @see hudson.tasks.BuildStepCompatibilityLayer#perform(hudson.model.AbstractBuild, hudson.Launcher, hudson.model.BuildListener)
      */
-    @Override
-    public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
-        throws IOException, InterruptedException
+    private boolean plan(
+            final ItemGroup<?> context,
+            final TopLevelItem fromJob,
+            final String fromJobNameExpanded,
+            final PreparedConfig template,
+            List<JobcopyTarget> targetList,
+            EnvVars env,
+            PrintStream logger
+    ) throws InterruptedException
     {
-        ItemGroup<?> context = build.getProject().getRootProject().getParent();
-        EnvVars env = build.getEnvironment(listener);
-        
-        if(StringUtils.isBlank(getFromJobName()))
-        {
-            listener.getLogger().println("From Job Name is not specified");
-            return false;
-        }
-        if(StringUtils.isBlank(getToJobName()))
+        List<ParallelTaskRunner.Task<PlannedChange>> taskList = new ArrayList<ParallelTaskRunner.Task<PlannedChange>>(targetList.size());
+        // worker threads run with the same authentication as this thread.
+        final Authentication auth = Jenkins.getAuthentication();
+        for(final JobcopyTarget target: targetList)
         {
-            listener.getLogger().println("To Job Name is not specified");
-            return false;
+            final EnvVars targetEnv = new EnvVars(env);
+            targetEnv.putAll(target.getVariables());
+            taskList.add(new ParallelTaskRunner.Task<PlannedChange>()
+            {
+                @Override
+                public PlannedChange call(PrintStream taskLogger)
+                {
+                    SecurityContext orig = ACL.impersonate(auth);
+                    try
+                    {
+                        return planTo(context, fromJob, fromJobNameExpanded, template, target.getJobName(), targetEnv, taskLogger);
+                    }
+                    catch(IOException e)
+                    {
+                        taskLogger.println(String.format("Failed to plan copying to %s", target.getJobName()));
+                        e.printStackTrace(taskLogger);
+                        return null;
+                    }
+                    finally
+                    {
+                        SecurityContextHolder.setContext(orig);
+                    }
+                }
+            });
         }
         
-        // Expand the variable expressions in job names.
-        String fromJobNameExpanded = env.expand(getFromJobName());
-        String toJobNameExpanded = env.expand(getToJobName());
+        // Nothing is written, and the same job can be planned concurrently.
+        List<PlannedChange> changeList = ParallelTaskRunner.run(
+                taskList,
+                getParallelism(),
+                String.format("Jobcopy plan from %s", fromJobNameExpanded),
+                logger
+        );
         
-        if(StringUtils.isBlank(fromJobNameExpanded))
+        int[] countList = new int[PlannedChange.values().length];
+        int failed = 0;
+        for(PlannedChange change: changeList)
         {
-            listener.getLogger().println("From Job Name got to a blank");
-            return false;
+            if(change == null)
+            {
+                ++failed;
+                continue;
+            }
+            ++countList[change.ordinal()];
         }
+        logger.println(String.format(
+                "Dry run: %d to create, %d to update, %d not changed, %d failed",
+                countList[PlannedChange.CREATE.ordinal()],
+                countList[PlannedChange.UPDATE.ordinal()],
+                countList[PlannedChange.UNCHANGED.ordinal()],
+                failed
+        ));
+        return (failed == 0);
+    }
+    
+    /**
+     * Tells what would be done to copy the prepared configuration to a job.
+     * 
+     * Performs the same checks and operations as
+     * {@link #copyTo(ItemGroup, TopLevelItem, String, PreparedConfig, String, EnvVars, PhaseTimings, PrintStream)},
+     * but never creates, updates nor reloads jobs.
+     * Can be called from multiple threads at the same time.
+     * 
+     * @param context       the context to resolve job names.
+     * @param fromJob       the job copied from.
+     * @param fromJobNameExpanded
+     *                      the name of the job copied from.
+     * @param template      the configuration of the job copied from.
+     * @param toJobName     the name of the job to be copied to. may contains variable expressions.
+     * @param env           variables for the job to be copied to.
+     * @param logger        the output stream to log.
+     * @return  what would be done. null if copying would fail.
+     * @throws IOException
+     */
+    private PlannedChange planTo(
+            ItemGroup<?> context,
+            TopLevelItem fromJob,
+            String fromJobNameExpanded,
+            PreparedConfig template,
+            String toJobName,
+            EnvVars env,
+            PrintStream logger
+    ) throws IOException
+    {
+        String toJobNameExpanded = env.expand(toJobName);
+        
         if(StringUtils.isBlank(toJobNameExpanded))
         {
-            listener.getLogger().println("To Job Name got to a blank");
-            return false;
+            logger.println("To Job Name got to a blank");
+            return null;
         }
         
-        listener.getLogger().println(String.format("Copying %s to %s", fromJobNameExpanded, toJobNameExpanded));
-        
-        // Reteive the job to be copied from.
-        TopLevelItem fromJob = getRelative(fromJobNameExpanded, context, TopLevelItem.class);
-        
-        if(fromJob == null)
-        {
-            listener.getLogger().println(String.format("Error: Item '%s 'was not found.", fromJob));
-            return false;
-        }
-        else if(!(fromJob instanceof AbstractItem))
-        {
-            listener.getLogger().println(String.format("Error: Item '%s' was found, but cannot be copied (does not support AbstractItem).", fromJob));
-            return false;
-        }
+        logger.println(String.format("Planning to copy %s to %s", fromJobNameExpanded, toJobNameExpanded));
         
-        // Check whether the job to be copied to is already exists.
         TopLevelItem toJob = getRelative(toJobNameExpanded, context, TopLevelItem.class);
-        if(toJob != null){
-            listener.getLogger().println(String.format("Already exists: %s", toJobNameExpanded));
-            if(!isOverwrite()){
-                return false;
-            }
-            if(!(toJob instanceof AbstractItem))
+        File toDir;
+        if(toJob != null)
+        {
+            logger.println(String.format("Already exists: %s", toJobNameExpanded));
+            if(!isOverwrite())
             {
-                listener.getLogger().println("Only AbstractItem can be overwritten: please delete manually, and run copy again");
-                return false;
+                return null;
             }
-        }
-        
-        // Retrieve the config.xml of the job copied from.
-        listener.getLogger().println(String.format("Fetching configuration of %s...", fromJobNameExpanded));
-        
-        XmlFile file = ((AbstractItem)fromJob).getConfigFile();
-        String jobConfigXmlString = file.asString();
-        String encoding = file.sniffEncoding();
-        listener.getLogger().println("Original xml:");
-        listener.getLogger().println(jobConfigXmlString);
-        
-        // Apply additional operations to the retrieved XML.
-        if(getJobcopyOperationList() != null)
-        {
-            for(JobcopyOperation operation: getJobcopyOperationList())
+            if(!(toJob instanceof AbstractItem))
             {
-                jobConfigXmlString = operation.perform(jobConfigXmlString, encoding, env, listener.getLogger());
-                if(jobConfigXmlString == null)
-                {
-                    return false;
-                }
+                logger.println("Only AbstractItem can be overwritten: please delete manually, and run copy again");
+                return null;
             }
+            toDir = toJob.getRootDir();
         }
-        listener.getLogger().println("Copied xml:");
-        listener.getLogger().println(jobConfigXmlString);
-        
-        if(toJob == null)
+        else
         {
-            // Create the job copied to.
-            listener.getLogger().println(String.format("Creating %s", toJobNameExpanded));
-            InputStream is = new ByteArrayInputStream(jobConfigXmlString.getBytes(encoding)); 
             ItemGroup<?> toContext = context;
-            if(toJobNameExpanded.lastIndexOf('/')  >= 0)
+            String name = toJobNameExpanded;
+            int pos = toJobNameExpanded.lastIndexOf('/');
+            if(pos >= 0)
             {
-                int pos = toJobNameExpanded.lastIndexOf('/');
                 String parentName = toJobNameExpanded.substring(0, pos);
-                toJobNameExpanded = toJobNameExpanded.substring(pos + 1);
+                name = toJobNameExpanded.substring(pos + 1);
                 
                 toContext = getRelative(parentName, context, ItemGroup.class);
                 if(toContext == null)
                 {
-                    listener.getLogger().println(String.format("Error: Target folder '%s' was not found.", parentName));
-                    return false;
+                    logger.println(String.format("Error: Target folder '%s' was not found.", parentName));
+                    return null;
                 }
             }
             
             if(!(toContext instanceof ModifiableTopLevelItemGroup))
             {
-                listener.getLogger().println(String.format("Error: Target folder '%s' does not support ModifiableTopLevelItemGroup", toContext.getFullName()));
-                return false;
+                logger.println(String.format("Error: Target folder '%s' does not support ModifiableTopLevelItemGroup", toContext.getFullName()));
+                return null;
             }
             
-            toJob = ((ModifiableTopLevelItemGroup)toContext).createProjectFromXML(toJobNameExpanded, is);
-            if(toJob == null)
+            try
             {
-                listener.getLogger().println(String.format("Failed to create %s", toJobNameExpanded));
-                return false;
+                Jenkins.checkGoodName(name);
             }
-        }
-        else
-        {
-            listener.getLogger().println(String.format("Updating %s", toJobNameExpanded));
-            AbstractItem target = (AbstractItem)toJob;
-            InputStream is = new ByteArrayInputStream(jobConfigXmlString.getBytes(encoding));
-            
-            String combinationFilter = null;
-            if(target instanceof MatrixProject)
-            {
-                MatrixProject matrix = (MatrixProject)target;
-                // Workaround for the case combinationFilter is removed.
-                // In that case, updateByXml does not update combinationFilter,
-                // for combinationFilter is not written in XML.
-                // So reset it here in advance. 
-                // It will be overwritten if defined.
-                combinationFilter = matrix.getCombinationFilter();
-                matrix.setCombinationFilter(null);
+            catch(Failure e)
+            {
+                logger.println(String.format("Error: %s", e.getMessage()));
+                return null;
             }
             
-            try
+            // Jenkins and folders put jobs in "jobs" directories.
+            // The directory does not exist yet, and all additional files would be written.
+            toDir = new File(new File(toContext.getRootDir(), "jobs"), name);
+        }
+        
+        String jobConfigXmlString = template.perform(env, new PhaseTimings(), logger);
+        if(jobConfigXmlString == null)
+        {
+            return null;
+        }
+        getLogLevel().logCopied("Copied xml", template.getXmlString(), jobConfigXmlString, logger);
+        
+        List<AdditionalFileset.FileResult> resultList = planAdditionalFiles(toDir, toJobNameExpanded, fromJob, env, logger);
+        if(resultList.contains(AdditionalFileset.FileResult.FAILED))
+        {
+            logger.println(String.format("Additional files would fail: %s", toJobNameExpanded));
+            return null;
+        }
+        
+        if(toJob == null)
+        {
+            logger.println(String.format("Would create %s", toJobNameExpanded));
+            return PlannedChange.CREATE;
+        }
+        if(!isConfigNotChanged((AbstractItem)toJob, jobConfigXmlString, template.getEncoding(), logger)
+                || resultList.contains(AdditionalFileset.FileResult.WRITTEN))
+        {
+            logger.println(String.format("Would update %s", toJobNameExpanded));
+            return PlannedChange.UPDATE;
+        }
+        logger.println(String.format("Not changed: %s", toJobNameExpanded));
+        return PlannedChange.UNCHANGED;
+    }
+    
+    /**
+     * What would be done to a job in the dry run.
+     */
+    public static enum PlannedChange
+    {
+        /**
+         * The job would be created.
+         */
+        CREATE,
+        /**
+         * The configuration or additional files of the job would be updated.
+         */
+        UPDATE,
+        /**
+         * Nothing would be written to the job.
+         */
+        UNCHANGED
+    }
+    
+    /**
+     * Tells what would be done to additional files of a job.
+     * 
+     * @param toDir         the directory of the job copied to. need not exist.
+     * @param toJobName     the name of the job copied to.
+     * @param fromJob       the job copied from.
+     * @param env           variables for the job to be copied to.
+     * @param logger        the output stream to log.
+     * @return  the results of files. Contains {@link AdditionalFileset.FileResult#FAILED} if a fileset would fail.
+     */
+    private List<AdditionalFileset.FileResult> planAdditionalFiles(File toDir, String toJobName, TopLevelItem fromJob, EnvVars env, PrintStream logger)
+    {
+        List<AdditionalFileset.FileResult> resultList = new ArrayList<AdditionalFileset.FileResult>();
+        if(getAdditionalFilesetList() == null || getAdditionalFilesetList().isEmpty())
+        {
+            return resultList;
+        }
+        
+        logger.println("Planning Additional Files...");
+        for(AdditionalFileset fileset: getAdditionalFilesetList())
+        {
+            List<AdditionalFileset.FileResult> filesetResultList = fileset.planFiles(toDir, toJobName, fromJob, env, getLogLevel(), logger);
+            if(filesetResultList == null)
             {
-                target.updateByXml((Source)new StreamSource(is));
+                resultList.add(AdditionalFileset.FileResult.FAILED);
+                continue;
             }
-            catch(IOException e)
+            resultList.addAll(filesetResultList);
+        }
+        return resultList;
+    }
+    
+    /**
+     * Copies additional files to a job.
+     * 
+     * @param toJob         the job copied to.
+     * @param fromJob       the job copied from.
+     * @param env           variables for the job to be copied to.
+     * @param logger        the output stream to log.
+     * @return  the results of files. Contains {@link AdditionalFileset.FileResult#FAILED} if a fileset failed.
+     */
+    private List<AdditionalFileset.FileResult> copyAdditionalFiles(TopLevelItem toJob, TopLevelItem fromJob, EnvVars env, PrintStream logger)
+    {
+        List<AdditionalFileset.FileResult> resultList = new ArrayList<AdditionalFileset.FileResult>();
+        if(getAdditionalFilesetList() == null || getAdditionalFilesetList().isEmpty())
+        {
+            return resultList;
+        }
+        
+        logger.println("Copying Additional Files...");
+        for(AdditionalFileset fileset: getAdditionalFilesetList())
+        {
+            List<AdditionalFileset.FileResult> filesetResultList = fileset.performFiles(toJob, fromJob, env, getLogLevel(), logger);
+            if(filesetResultList == null)
             {
-                if(combinationFilter != null)
-                {
-                    // recover combinationFilter.
-                    MatrixProject matrix = (MatrixProject)target;
-                    matrix.setCombinationFilter(combinationFilter);
-                }
-                throw e;
+                resultList.add(AdditionalFileset.FileResult.FAILED);
+                continue;
             }
+            resultList.addAll(filesetResultList);
+        }
+        return resultList;
+    }
+    
+    /**
+     * Tests whether the configuration of an existing job is equivalent to the copied one.
+     * 
+     * @param target        the job to be copied to.
+     * @param jobConfigXmlString
+     *                      the copied configuration.
+     * @param encoding      encoding of the configuration.
+     * @param logger        the output stream to log.
+     * @return whether the configuration needs not be updated.
+     */
+    private static boolean isConfigNotChanged(AbstractItem target, String jobConfigXmlString, String encoding, PrintStream logger)
+    {
+        String currentXmlString;
+        Reader reader = null;
+        try
+        {
+            reader = target.getConfigFile().readRaw();
+            currentXmlString = IOUtils.toString(reader);
+        }
+        catch(IOException e)
+        {
+            // update the configuration anyway.
+            logger.println(String.format("Failed to read the configuration of %s", target.getFullName()));
+            e.printStackTrace(logger);
+            return false;
+        }
+        finally
+        {
+            IOUtils.closeQuietly(reader);
+        }
+        return XmlComparator.isEquivalent(currentXmlString, jobConfigXmlString, encoding, logger);
+    }
+    
+    /**
+     * The configuration of the job copied from, prepared to be copied to jobs.
+     * 
+     * When the cache is enabled, the configuration is parsed only when
+     * a transformed configuration is not found in the cache.
+     * Can be used from multiple threads.
+     */
+    private static class PreparedConfig
+    {
+        private final JobcopyOperationPipeline pipeline;
+        private final String xmlString;
+        private final String encoding;
+        private final TransformationCache.Source cacheSource;
+        private JobcopyOperationPipeline.Template template;
+        private boolean prepared = false;
+        private final AtomicInteger hitCount = new AtomicInteger();
+        private final AtomicInteger missCount = new AtomicInteger();
+        
+        /**
+         * @param pipeline      operations to perform.
+         * @param xmlString     the configuration of the job copied from.
+         * @param encoding      encoding of the configuration.
+         * @param cacheSource   used to look up the cache. null not to use the cache.
+         */
+        public PreparedConfig(JobcopyOperationPipeline pipeline, String xmlString, String encoding, TransformationCache.Source cacheSource)
+        {
+            this.pipeline = pipeline;
+            this.xmlString = xmlString;
+            this.encoding = encoding;
+            this.cacheSource = cacheSource;
+        }
+        
+        public String getXmlString()
+        {
+            return xmlString;
         }
         
-        boolean failed = false;
+        public String getEncoding()
+        {
+            return encoding;
+        }
         
-        if(getAdditionalFilesetList() != null && !getAdditionalFilesetList().isEmpty())
+        /**
+         * Prepares the configuration only once.
+         * 
+         * @param logger    the output stream to log.
+         * @return the prepared configuration. null if failed.
+         */
+        public synchronized JobcopyOperationPipeline.Template getTemplate(PrintStream logger)
+        {
+            if(!prepared)
+            {
+                template = pipeline.prepare(xmlString, encoding, logger);
+                prepared = true;
+            }
+            return template;
+        }
+        
+        /**
+         * Performs the operations, or returns the cached result.
+         * 
+         * @param env       variables used for the target.
+         * @param timings   timings to record each phase.
+         * @param logger    the output stream to log.
+         * @return modified XML string. Returns null if an error occurs.
+         */
+        public String perform(EnvVars env, PhaseTimings timings, PrintStream logger)
         {
-            listener.getLogger().println("Copying Additional Files...");
-            for(AdditionalFileset fileset: getAdditionalFilesetList())
+            long t = System.nanoTime();
+            String key = null;
+            if(cacheSource != null)
             {
-                if(!fileset.perform(toJob, fromJob, env, listener.getLogger()))
+                key = cacheSource.getKey(env);
+                String cached = TransformationCache.getInstance().get(key);
+                t = timings.record("Look up the transformation cache", t);
+                if(cached != null)
                 {
-                    failed = true;
+                    hitCount.incrementAndGet();
+                    logger.println("Using the cached configuration");
+                    return cached;
                 }
+                missCount.incrementAndGet();
             }
             
-            // Do null update to reload the configuration.
-            AbstractItem target = (AbstractItem)toJob;
-            target.updateByXml((Source)new StreamSource(target.getConfigFile().readRaw()));
+            JobcopyOperationPipeline.Template pipelineTemplate = getTemplate(logger);
+            if(pipelineTemplate == null)
+            {
+                return null;
+            }
+            if(cacheSource != null)
+            {
+                // prepared here only for the first target.
+                timings.record("Prepare the configuration", t);
+            }
+            String result = pipelineTemplate.perform(env, logger, timings);
+            if(result != null && key != null)
+            {
+                TransformationCache.getInstance().put(key, result);
+            }
+            return result;
         }
         
-        // add the information of jobs copied from and to to the build.
-        build.addAction(new CopiedjobinfoAction(fromJob, toJob, failed));
-        
-        return true;
+        /**
+         * Logs how many times the cache is used.
+         * 
+         * @param logger    the output stream to log.
+         */
+        public void logCacheStatistics(PrintStream logger)
+        {
+            if(cacheSource == null)
+            {
+                return;
+            }
+            TransformationCache cache = TransformationCache.getInstance();
+            logger.println(String.format(
+                    "Transformation cache: %d hits, %d misses (hit rate in total: %.1f%%, %d entries, %d characters)",
+                    hitCount.get(),
+                    missCount.get(),
+                    cache.getHitRate() * 100,
+                    cache.size(),
+                    cache.getTotalLength()
+            ));
+        }
     }
     
     /**
@@ -492,18 +1576,26 @@ public class JobcopyBuilder extends Builder implements Serializable
             return JobcopyOperation.all();
         }
         
+        /**
+         * The maximum number of candidates returned by {@link #doAutoCompleteFromJobName(AbstractProject, String)}.
+         */
+        public static final int MAX_AUTO_COMPLETION_CANDIDATES = 100;
+        
         /**
          * Returns the list of jobs.
          * 
-         * Used for the autocomplete of From Job Name.
+         * No longer used by the configuration page, and kept only for compatibility.
          * 
          * @return the list of names of jobs
+         * @deprecated use {@link #doAutoCompleteFromJobName(AbstractProject, String)},
+         *      which does not send all jobs to the configuration page.
          */
+        @Deprecated
         public ComboBoxModel doFillFromJobNameItems(@AncestorInPath AbstractProject<?,?> project)
         {
             final ItemGroup<?> context = (project != null)?project.getParent():Jenkins.getInstance().getItemGroup();
             List<String> itemList = new ArrayList<String>(Lists.transform(
-                    Jenkins.getInstance().getAllItems(AbstractItem.class),
+                    JobNameIndex.getItems(null),
                     new Function<Item, String>()
                     {
                         public String apply(Item input)
@@ -512,10 +1604,50 @@ public class JobcopyBuilder extends Builder implements Serializable
                         }
                     }
             ));
-            Collections.sort(itemList);
+            if(!StringUtils.isEmpty(context.getFullName()))
+            {
+                // items are sorted by full names, and relative names may be in a different order.
+                Collections.sort(itemList);
+            }
             return new ComboBoxModel(itemList);
         }
         
+        /**
+         * Returns names of jobs starting with the input.
+         * 
+         * Used for the autocomplete of From Job Name.
+         * Names are relative to the context like the input,
+         * and at most {@link #MAX_AUTO_COMPLETION_CANDIDATES} names are returned.
+         * 
+         * @param project   the job being configured.
+         * @param value     the input.
+         * @return names of jobs.
+         */
+        public AutoCompletionCandidates doAutoCompleteFromJobName(@AncestorInPath AbstractProject<?,?> project, @QueryParameter String value)
+        {
+            ItemGroup<?> context = (project != null)?project.getParent():Jenkins.getInstance().getItemGroup();
+            AutoCompletionCandidates candidates = new AutoCompletionCandidates();
+            value = StringUtils.stripStart(StringUtils.defaultString(value), null);
+            
+            // "folder/../job" is completed in the folder "folder/..".
+            String dirName = value.substring(0, value.lastIndexOf('/') + 1);
+            String dirFullName = JobNameIndex.resolve(context.getFullName(), dirName);
+            if(dirFullName == null)
+            {
+                return candidates;
+            }
+            String dirPrefix = StringUtils.isEmpty(dirFullName)?"":String.format("%s/", dirFullName);
+            
+            for(AbstractItem item: JobNameIndex.getItems(
+                    dirPrefix + value.substring(dirName.length()),
+                    MAX_AUTO_COMPLETION_CANDIDATES
+            ))
+            {
+                candidates.add(dirName + item.getFullName().substring(dirPrefix.length()));
+            }
+            return candidates;
+        }
+        
         /**
          * Returns whether the value contains variable.
          * 
@@ -600,15 +1732,16 @@ public class JobcopyBuilder extends Builder implements Serializable
                 return FormValidation.ok();
             }
             
-            TopLevelItem job = getRelative(jobName, context, TopLevelItem.class);
-            if(job != null)
+            String fullName = JobNameIndex.resolve(context.getFullName(), jobName);
+            JobNameValidationCache.Kind kind = getKindOf(context, jobName, fullName);
+            if(kind != JobNameValidationCache.Kind.NOT_FOUND)
             {
                 // job exists
                 if(warnIfExists)
                 {
                     return FormValidation.warning(Messages.JobCopyBuilder_JobName_exists());
                 }
-                if(!(job instanceof AbstractItem))
+                if(kind != JobNameValidationCache.Kind.ABSTRACT_ITEM)
                 {
                     return FormValidation.warning(Messages.JobCopyBuilder_JobName_notAbstractItem());
                 }
@@ -625,6 +1758,52 @@ public class JobcopyBuilder extends Builder implements Serializable
             return FormValidation.ok();
         }
         
+        /**
+         * Returns what the job name refers to.
+         * 
+         * Results are cached with {@link JobNameValidationCache}
+         * as this is called for each input in configuration pages.
+         * 
+         * @param context   the context to resolve the job name.
+         * @param jobName   the job name.
+         * @param fullName  the full name resolved from the job name. null if cannot be resolved.
+         * @return what the job name refers to.
+         */
+        private JobNameValidationCache.Kind getKindOf(ItemGroup<?> context, String jobName, String fullName)
+        {
+            JobNameValidationCache cache = JobNameValidationCache.getInstance();
+            String userName = Jenkins.getAuthentication().getName();
+            if(fullName != null)
+            {
+                JobNameValidationCache.Kind kind = cache.get(userName, fullName);
+                if(kind != null)
+                {
+                    return kind;
+                }
+            }
+            
+            long generation = cache.getGeneration();
+            TopLevelItem job = null;
+            if(!JobNameIndex.isReady() || (fullName != null && JobNameIndex.contains(fullName)))
+            {
+                job = getRelative(jobName, context, TopLevelItem.class);
+            }
+            else if(fullName != null)
+            {
+                // The index records only AbstractItems.
+                // Look up other items directly not to report them as not found.
+                job = Jenkins.getInstance().getItemByFullName(fullName, TopLevelItem.class);
+            }
+            JobNameValidationCache.Kind kind = (job == null)?JobNameValidationCache.Kind.NOT_FOUND
+                    :(job instanceof AbstractItem)?JobNameValidationCache.Kind.ABSTRACT_ITEM
+                    :JobNameValidationCache.Kind.OTHER;
+            if(fullName != null)
+            {
+                cache.put(generation, userName, fullName, kind);
+            }
+            return kind;
+        }
+        
         /**
          * Validate "From Job Name" field.
          * 
@@ -641,10 +1820,16 @@ public class JobcopyBuilder extends Builder implements Serializable
          * 
          * @param toJobName
          * @param overwrite
+         * @param bulkTargets
          * @return FormValidation object.
          */
-        public FormValidation doCheckToJobName(@AncestorInPath AbstractProject<?,?> project, @QueryParameter String toJobName, @QueryParameter boolean overwrite)
+        public FormValidation doCheckToJobName(@AncestorInPath AbstractProject<?,?> project, @QueryParameter String toJobName, @QueryParameter boolean overwrite, @QueryParameter String bulkTargets)
         {
+            if(!StringUtils.isBlank(bulkTargets))
+            {
+                // To Job Name is not used in the bulk mode.
+                return FormValidation.ok();
+            }
             return doCheckJobName(project, toJobName, !overwrite, false);
         }
     }
@@ -0,0 +1,298 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Emits events of copying jobs to Java Flight Recorder.
+ *
+ * Events are emitted only when the implementation using <code>jdk.jfr</code>
+ * (built only with the profile <code>jfr</code> on JDK 11 or later, in <code>src/main/jfr</code>)
+ * is available on the running JVM. Otherwise, all methods do nothing.
+ *
+ * Usage:
+ * <pre>
+ * JobcopyEvents.CopyEvent event = JobcopyEvents.getInstance().newCopyEvent();
+ * event.begin();
+ * try
+ * {
+ *     (copy a job)
+ * } finally
+ * {
+ *     event.commit(...);
+ * }
+ * </pre>
+ *
+ * Events must be committed even when failed:
+ * an operation event is the current one of the thread until committed.
+ */
+public abstract class JobcopyEvents
+{
+    private static final Logger LOGGER = Logger.getLogger(JobcopyEvents.class.getName());
+
+    /**
+     * The class name of the implementation using Java Flight Recorder.
+     */
+    static final String JFR_IMPLEMENTATION = "jp.ikedam.jenkins.plugins.jobcopy_builder.jfr.JfrJobcopyEvents";
+
+    private static final JobcopyEvents INSTANCE = load();
+
+    private static JobcopyEvents load()
+    {
+        try
+        {
+            return (JobcopyEvents) Class.forName(JFR_IMPLEMENTATION).newInstance();
+        } catch (final ClassNotFoundException e)
+        {
+            // not built with JFR.
+        } catch (final LinkageError e)
+        {
+            // JFR is not available in this JVM.
+            LOGGER.log(Level.FINE, "Java Flight Recorder is not available", e);
+        } catch (final Exception e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to load events for Java Flight Recorder", e);
+        }
+        return new NoopJobcopyEvents();
+    }
+
+    /**
+     * Returns the implementation available in this JVM.
+     *
+     * @return the implementation emitting events, or doing nothing.
+     */
+    public static JobcopyEvents getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns whether events are emitted to Java Flight Recorder.
+     *
+     * @return whether Java Flight Recorder is available.
+     */
+    public abstract boolean isAvailable();
+
+    /**
+     * Copying a job.
+     */
+    public static abstract class CopyEvent
+    {
+        /**
+         * Starts timing the event.
+         */
+        public abstract void begin();
+
+        /**
+         * @param bytes
+         *            the size of the configuration of the copied job.
+         */
+        public abstract void setBytes(long bytes);
+
+        /**
+         * Emits the event.
+         *
+         * @param fromJobName
+         *            the job copied from.
+         * @param toJobName
+         *            the job copied to.
+         * @param succeeded
+         *            whether copying succeeded.
+         */
+        public abstract void commit(String fromJobName, String toJobName, boolean succeeded);
+    }
+
+    /**
+     * Performing a {@link JobcopyOperation}.
+     */
+    public static abstract class OperationEvent
+    {
+        /**
+         * Starts timing the event.
+         */
+        public abstract void begin();
+
+        /**
+         * Counts replaced strings in the operation.
+         *
+         * @param count
+         *            the number of replaced strings.
+         */
+        public abstract void addMatches(long count);
+
+        /**
+         * Emits the event, and ends it as the current operation event of the thread.
+         *
+         * Must be called even if the operation fails or throws an exception.
+         *
+         * @param operation
+         *            the performed operation.
+         * @param succeeded
+         *            whether the operation succeeded.
+         */
+        public abstract void commit(JobcopyOperation operation, boolean succeeded);
+    }
+
+    /**
+     * Processing a file with {@link AdditionalFileset}.
+     */
+    public static abstract class AdditionalFileEvent
+    {
+        /**
+         * Starts timing the event.
+         */
+        public abstract void begin();
+
+        /**
+         * Emits the event.
+         *
+         * @param path
+         *            the path of the file written to.
+         * @param bytes
+         *            the size of the file read from.
+         * @param result
+         *            the result of the file (the name of {@link AdditionalFileset.FileResult}).
+         */
+        public abstract void commit(String path, long bytes, String result);
+    }
+
+    /**
+     * @return a new event of copying a job.
+     */
+    public abstract CopyEvent newCopyEvent();
+
+    /**
+     * Creates an event of an operation.
+     *
+     * The event is also the current operation event of this thread
+     * until committed (see {@link #addMatches(long)}).
+     * An event created while another operation event is in progress in the same thread
+     * (e.g. {@link AbstractXmlJobcopyOperation} performed by {@link JobcopyOperationPipeline})
+     * is ignored not to be emitted twice.
+     *
+     * @return a new event of an operation.
+     */
+    public abstract OperationEvent newOperationEvent();
+
+    /**
+     * @return a new event of processing a file.
+     */
+    public abstract AdditionalFileEvent newAdditionalFileEvent();
+
+    /**
+     * Counts replaced strings in the operation performed in this thread.
+     *
+     * @param count
+     *            the number of replaced strings.
+     */
+    public abstract void addMatches(long count);
+
+    /**
+     * Used when Java Flight Recorder is not available.
+     *
+     * Events are shared as they do nothing.
+     */
+    private static class NoopJobcopyEvents extends JobcopyEvents
+    {
+        private static final CopyEvent COPY_EVENT = new CopyEvent()
+        {
+            @Override
+            public void begin()
+            {
+            }
+
+            @Override
+            public void setBytes(final long bytes)
+            {
+            }
+
+            @Override
+            public void commit(final String fromJobName, final String toJobName, final boolean succeeded)
+            {
+            }
+        };
+
+        private static final OperationEvent OPERATION_EVENT = new OperationEvent()
+        {
+            @Override
+            public void begin()
+            {
+            }
+
+            @Override
+            public void addMatches(final long count)
+            {
+            }
+
+            @Override
+            public void commit(final JobcopyOperation operation, final boolean succeeded)
+            {
+            }
+        };
+
+        private static final AdditionalFileEvent ADDITIONAL_FILE_EVENT = new AdditionalFileEvent()
+        {
+            @Override
+            public void begin()
+            {
+            }
+
+            @Override
+            public void commit(final String path, final long bytes, final String result)
+            {
+            }
+        };
+
+        @Override
+        public boolean isAvailable()
+        {
+            return false;
+        }
+
+        @Override
+        public CopyEvent newCopyEvent()
+        {
+            return COPY_EVENT;
+        }
+
+        @Override
+        public OperationEvent newOperationEvent()
+        {
+            return OPERATION_EVENT;
+        }
+
+        @Override
+        public AdditionalFileEvent newAdditionalFileEvent()
+        {
+            return ADDITIONAL_FILE_EVENT;
+        }
+
+        @Override
+        public void addMatches(final long count)
+        {
+        }
+    }
+}
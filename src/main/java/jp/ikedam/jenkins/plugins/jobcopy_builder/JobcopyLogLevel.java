@@ -0,0 +1,144 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.io.PrintStream;
+import java.util.List;
+
+import org.jvnet.localizer.Localizable;
+
+import hudson.Util;
+
+/**
+ * How much of configurations and files are logged when copying.
+ */
+public enum JobcopyLogLevel
+{
+    /**
+     * Logs no contents.
+     */
+    NONE(Messages._JobcopyLogLevel_NONE()),
+    /**
+     * Logs sizes and hashes of contents.
+     */
+    SUMMARY(Messages._JobcopyLogLevel_SUMMARY()),
+    /**
+     * Logs sizes and hashes of contents, and changed lines.
+     */
+    DIFF(Messages._JobcopyLogLevel_DIFF()),
+    /**
+     * Logs whole contents before and after copying.
+     */
+    FULL(Messages._JobcopyLogLevel_FULL());
+
+    private final Localizable displayName;
+
+    private JobcopyLogLevel(final Localizable displayName)
+    {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Returns the name displayed in the job configuration page.
+     *
+     * @return the display name.
+     */
+    public String getDisplayName()
+    {
+        return displayName.toString();
+    }
+
+    /**
+     * Logs the contents before operations are applied.
+     *
+     * @param title
+     *            what the contents is.
+     * @param contents
+     *            the contents.
+     * @param logger
+     *            The output stream to log.
+     */
+    public void logOriginal(final String title, final String contents, final PrintStream logger)
+    {
+        switch (this)
+        {
+        case NONE:
+            break;
+        case FULL:
+            logger.println(String.format("%s:", title));
+            logger.println(contents);
+            break;
+        default:
+            logger.println(String.format("%s: %s", title, getSummary(contents)));
+            break;
+        }
+    }
+
+    /**
+     * Logs the contents after operations are applied.
+     *
+     * @param title
+     *            what the contents is.
+     * @param original
+     *            the contents before operations are applied.
+     * @param copied
+     *            the contents after operations are applied.
+     * @param logger
+     *            The output stream to log.
+     */
+    public void logCopied(final String title, final String original, final String copied, final PrintStream logger)
+    {
+        switch (this)
+        {
+        case NONE:
+            break;
+        case FULL:
+            logger.println(String.format("%s:", title));
+            logger.println(copied);
+            break;
+        case DIFF:
+            if(copied.equals(original))
+            {
+                logger.println(String.format("%s: %s, not changed", title, getSummary(copied)));
+                break;
+            }
+            logger.println(String.format("%s: %s, changed lines:", title, getSummary(copied)));
+            final List<String> diff = LineDiff.diff(original, copied);
+            for (final String line : diff)
+            {
+                logger.println(line);
+            }
+            break;
+        default:
+            logger.println(String.format("%s: %s%s", title, getSummary(copied),
+                    copied.equals(original) ? ", not changed" : ""));
+            break;
+        }
+    }
+
+    private static String getSummary(final String contents)
+    {
+        return String.format("%d characters, MD5 %s", contents.length(), Util.getDigestOf(contents));
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of copying jobs aggregated across all builds.
+ *
+ * Exposed via JMX and <code>/jobcopy-metrics</code> (see {@link JobcopyMetricsAction}).
+ * Values are kept only in memory, and lost when Jenkins restarts.
+ * Thread-safe.
+ */
+public class JobcopyMetrics implements JobcopyMetricsMXBean
+{
+    /**
+     * Why copying a job failed.
+     */
+    public static enum FailureCause
+    {
+        /**
+         * The job to copy from is not found.
+         */
+        SOURCE_NOT_FOUND,
+        /**
+         * The job to copy from is found, but cannot be copied (is not an AbstractItem).
+         */
+        SOURCE_NOT_COPYABLE,
+        /**
+         * The job to copy to is invalid, or already exists and cannot be overwritten.
+         */
+        INVALID_TARGET,
+        /**
+         * An operation failed.
+         */
+        OPERATION_FAILED,
+        /**
+         * Failed to create the job.
+         */
+        CREATE_FAILED,
+        /**
+         * Failed to copy additional files.
+         */
+        ADDITIONAL_FILES_FAILED,
+        /**
+         * An exception is thrown.
+         */
+        EXCEPTION
+    }
+
+    private static final JobcopyMetrics INSTANCE = new JobcopyMetrics();
+
+    /**
+     * Returns the metrics shared in the Jenkins instance.
+     *
+     * @return the shared metrics.
+     */
+    public static JobcopyMetrics getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private final LatencyHistogram copyTime = new LatencyHistogram();
+
+    private final LatencyHistogram updateTime = new LatencyHistogram();
+
+    private final AtomicLong bytesProcessed = new AtomicLong();
+
+    private final AtomicLong replacements = new AtomicLong();
+
+    private final Map<FailureCause, AtomicLong> failureMap = new EnumMap<FailureCause, AtomicLong>(
+            FailureCause.class);
+
+    /**
+     * constructor.
+     */
+    public JobcopyMetrics()
+    {
+        for (final FailureCause cause : FailureCause.values())
+        {
+            failureMap.put(cause, new AtomicLong());
+        }
+    }
+
+    /**
+     * Records a job copied successfully.
+     *
+     * @param nanos
+     *            the time to copy the job, in nanoseconds.
+     * @param bytes
+     *            the size of the configuration of the copied job.
+     */
+    public void recordCopy(final long nanos, final long bytes)
+    {
+        copyTime.record(nanos);
+        bytesProcessed.addAndGet(bytes);
+    }
+
+    /**
+     * Records a job updated or reloaded.
+     *
+     * @param nanos
+     *            the time to update the job, in nanoseconds.
+     */
+    public void recordUpdate(final long nanos)
+    {
+        updateTime.record(nanos);
+    }
+
+    /**
+     * Records replaced strings.
+     *
+     * @param count
+     *            the number of replaced strings.
+     */
+    public void recordReplacements(final long count)
+    {
+        replacements.addAndGet(count);
+    }
+
+    /**
+     * Records a failure.
+     *
+     * @param cause
+     *            why copying failed.
+     */
+    public void recordFailure(final FailureCause cause)
+    {
+        failureMap.get(cause).incrementAndGet();
+    }
+
+    /**
+     * Returns the times to copy a job.
+     *
+     * @return the histogram of times in nanoseconds.
+     */
+    public LatencyHistogram getCopyTime()
+    {
+        return copyTime;
+    }
+
+    /**
+     * Returns the times to update or reload a job.
+     *
+     * @return the histogram of times in nanoseconds.
+     */
+    public LatencyHistogram getUpdateTime()
+    {
+        return updateTime;
+    }
+
+    private static double toMillis(final long nanos)
+    {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public long getCopyCount()
+    {
+        return copyTime.getCount();
+    }
+
+    @Override
+    public double getCopyTimeP50()
+    {
+        return toMillis(copyTime.getPercentile(50));
+    }
+
+    @Override
+    public double getCopyTimeP99()
+    {
+        return toMillis(copyTime.getPercentile(99));
+    }
+
+    @Override
+    public double getCopyTimeMax()
+    {
+        return toMillis(copyTime.getMax());
+    }
+
+    @Override
+    public long getUpdateCount()
+    {
+        return updateTime.getCount();
+    }
+
+    @Override
+    public double getUpdateTimeP50()
+    {
+        return toMillis(updateTime.getPercentile(50));
+    }
+
+    @Override
+    public double getUpdateTimeP99()
+    {
+        return toMillis(updateTime.getPercentile(99));
+    }
+
+    @Override
+    public double getUpdateTimeMax()
+    {
+        return toMillis(updateTime.getMax());
+    }
+
+    @Override
+    public long getBytesProcessed()
+    {
+        return bytesProcessed.get();
+    }
+
+    @Override
+    public long getReplacements()
+    {
+        return replacements.get();
+    }
+
+    @Override
+    public long getCacheHits()
+    {
+        return TransformationCache.getInstance().getHitCount();
+    }
+
+    @Override
+    public long getCacheMisses()
+    {
+        return TransformationCache.getInstance().getMissCount();
+    }
+
+    @Override
+    public long getFailureCount()
+    {
+        long total = 0;
+        for (final AtomicLong count : failureMap.values())
+        {
+            total += count.get();
+        }
+        return total;
+    }
+
+    @Override
+    public Map<String, Long> getFailuresByCause()
+    {
+        final Map<String, Long> result = new TreeMap<String, Long>();
+        for (final Map.Entry<FailureCause, AtomicLong> entry : failureMap.entrySet())
+        {
+            result.put(entry.getKey().name(), entry.getValue().get());
+        }
+        return result;
+    }
+
+    /**
+     * Discards all recorded values.
+     *
+     * Counts of the transformation cache are not reset,
+     * as they are held by {@link TransformationCache}.
+     */
+    @Override
+    public void reset()
+    {
+        copyTime.reset();
+        updateTime.reset();
+        bytesProcessed.set(0);
+        replacements.set(0);
+        for (final AtomicLong count : failureMap.values())
+        {
+            count.set(0);
+        }
+    }
+}
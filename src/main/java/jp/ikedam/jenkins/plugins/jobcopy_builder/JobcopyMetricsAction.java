@@ -0,0 +1,185 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import net.sf.json.JSONObject;
+
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import hudson.Extension;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.RootAction;
+import jenkins.model.Jenkins;
+
+/**
+ * Exposes {@link JobcopyMetrics} as JSON at <code>/jobcopy-metrics/</code>,
+ * and registers it to the platform MBean server.
+ *
+ * Only administrators can access.
+ * Not displayed in the side panel.
+ */
+@Extension
+public class JobcopyMetricsAction implements RootAction
+{
+    private static final Logger LOGGER = Logger.getLogger(JobcopyMetricsAction.class.getName());
+
+    /**
+     * The name of the MBean.
+     */
+    public static final String OBJECT_NAME = "jp.ikedam.jenkins.plugins.jobcopy_builder:type=JobcopyMetrics";
+
+    /**
+     * Registers the metrics to the platform MBean server.
+     */
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void registerMBean()
+    {
+        try
+        {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if(server.isRegistered(name))
+            {
+                // Jenkins is restarted in the same JVM (e.g. tests)
+                return;
+            }
+            server.registerMBean(JobcopyMetrics.getInstance(), name);
+        } catch (final JMException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to register metrics to JMX", e);
+        }
+    }
+
+    /**
+     * Returns null not for being displayed in the link list.
+     *
+     * @return null
+     * @see hudson.model.Action#getIconFileName()
+     */
+    @Override
+    public String getIconFileName()
+    {
+        return null;
+    }
+
+    /**
+     * @return the display name.
+     * @see hudson.model.Action#getDisplayName()
+     */
+    @Override
+    public String getDisplayName()
+    {
+        return Messages.JobcopyMetricsAction_DisplayName();
+    }
+
+    /**
+     * @return "jobcopy-metrics"
+     * @see hudson.model.Action#getUrlName()
+     */
+    @Override
+    public String getUrlName()
+    {
+        return "jobcopy-metrics";
+    }
+
+    /**
+     * Returns the metrics as JSON.
+     *
+     * @param metrics
+     *            the metrics.
+     * @return the metrics as JSON. Times are in milliseconds.
+     */
+    public static JSONObject toJSON(final JobcopyMetrics metrics)
+    {
+        final JSONObject json = new JSONObject();
+        json.put("copyTime", toJSON(metrics.getCopyTime()));
+        json.put("updateTime", toJSON(metrics.getUpdateTime()));
+        json.put("bytesProcessed", metrics.getBytesProcessed());
+        json.put("replacements", metrics.getReplacements());
+        json.put("cacheHits", metrics.getCacheHits());
+        json.put("cacheMisses", metrics.getCacheMisses());
+        json.put("failures", metrics.getFailureCount());
+        json.put("failuresByCause", metrics.getFailuresByCause());
+        return json;
+    }
+
+    private static JSONObject toJSON(final LatencyHistogram histogram)
+    {
+        final JSONObject json = new JSONObject();
+        json.put("count", histogram.getCount());
+        json.put("mean", histogram.getMean() / TimeUnit.MILLISECONDS.toNanos(1));
+        json.put("p50", toMillis(histogram.getPercentile(50)));
+        json.put("p90", toMillis(histogram.getPercentile(90)));
+        json.put("p99", toMillis(histogram.getPercentile(99)));
+        json.put("max", toMillis(histogram.getMax()));
+        return json;
+    }
+
+    private static double toMillis(final long nanos)
+    {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Writes the metrics as JSON.
+     *
+     * @param req
+     * @param rsp
+     * @throws IOException
+     */
+    public void doIndex(final StaplerRequest req, final StaplerResponse rsp) throws IOException
+    {
+        Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().print(toJSON(JobcopyMetrics.getInstance()).toString(2));
+    }
+
+    /**
+     * Discards all recorded values.
+     *
+     * @param req
+     * @param rsp
+     * @throws IOException
+     */
+    @RequirePOST
+    public void doReset(final StaplerRequest req, final StaplerResponse rsp) throws IOException
+    {
+        Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+        JobcopyMetrics.getInstance().reset();
+        rsp.sendRedirect2(".");
+    }
+}
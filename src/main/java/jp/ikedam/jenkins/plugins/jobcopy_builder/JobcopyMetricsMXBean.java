@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.util.Map;
+
+/**
+ * Metrics of copying jobs exposed via JMX.
+ *
+ * Times are in milliseconds.
+ *
+ * @see JobcopyMetrics
+ */
+public interface JobcopyMetricsMXBean
+{
+    /**
+     * @return the number of jobs copied successfully.
+     */
+    public long getCopyCount();
+
+    /**
+     * @return the median of times to copy a job.
+     */
+    public double getCopyTimeP50();
+
+    /**
+     * @return the 99th percentile of times to copy a job.
+     */
+    public double getCopyTimeP99();
+
+    /**
+     * @return the longest time to copy a job.
+     */
+    public double getCopyTimeMax();
+
+    /**
+     * @return the number of times jobs are updated or reloaded.
+     */
+    public long getUpdateCount();
+
+    /**
+     * @return the median of times to update or reload a job.
+     */
+    public double getUpdateTimeP50();
+
+    /**
+     * @return the 99th percentile of times to update or reload a job.
+     */
+    public double getUpdateTimeP99();
+
+    /**
+     * @return the longest time to update or reload a job.
+     */
+    public double getUpdateTimeMax();
+
+    /**
+     * @return the total size of configurations of copied jobs, in bytes.
+     */
+    public long getBytesProcessed();
+
+    /**
+     * @return the total number of replaced strings.
+     */
+    public long getReplacements();
+
+    /**
+     * @return the number of times transformed configurations are reused.
+     */
+    public long getCacheHits();
+
+    /**
+     * @return the number of times transformed configurations are not found in the cache.
+     */
+    public long getCacheMisses();
+
+    /**
+     * @return the total number of failures.
+     */
+    public long getFailureCount();
+
+    /**
+     * @return the number of failures for each cause.
+     */
+    public Map<String, Long> getFailuresByCause();
+
+    /**
+     * Discards all recorded values.
+     */
+    public void reset();
+}
@@ -0,0 +1,284 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.w3c.dom.Document;
+
+import hudson.EnvVars;
+
+/**
+ * Performs a list of {@link JobcopyOperation}s to a configuration.
+ *
+ * Consecutive {@link AbstractXmlJobcopyOperation}s share one parsed XML Document:
+ * the configuration is parsed before the first of them and serialized after the last of them,
+ * instead of being parsed and serialized by each of them.
+ * Other operations are performed with the XML string as usual.
+ *
+ * {@link AbstractXmlJobcopyOperation#perform(String, String, EnvVars, PrintStream)}
+ * is called only for an XML operation not adjacent to another XML operation.
+ *
+ * To copy one configuration to many targets, use {@link #prepare(String, String, PrintStream)}
+ * to parse the configuration only once.
+ */
+public class JobcopyOperationPipeline
+{
+    private final List<JobcopyOperation> jobcopyOperationList;
+
+    /**
+     * Returns the list of operations.
+     *
+     * @return the list of operations
+     */
+    public List<JobcopyOperation> getJobcopyOperationList()
+    {
+        return jobcopyOperationList;
+    }
+
+    /**
+     * constructor.
+     *
+     * @param jobcopyOperationList
+     *            the list of operations to be performed. may be null.
+     */
+    public JobcopyOperationPipeline(final List<JobcopyOperation> jobcopyOperationList)
+    {
+        this.jobcopyOperationList = (jobcopyOperationList != null) ? jobcopyOperationList
+                : Collections.<JobcopyOperation> emptyList();
+    }
+
+    /**
+     * Performs all the operations.
+     *
+     * @param xmlString
+     *            XML string of the job to be copied (job/NAME/config.xml)
+     * @param encoding
+     *            encoding of the XML.
+     * @param env
+     *            Variables defined in the build.
+     * @param logger
+     *            The output stream to log.
+     * @return modified XML string. Returns null if an error occurs.
+     */
+    public String perform(final String xmlString, final String encoding, final EnvVars env, final PrintStream logger)
+    {
+        return perform(0, xmlString, encoding, env, logger, null);
+    }
+
+    /**
+     * Prepares the configuration to perform the operations for multiple times.
+     *
+     * If the first operation is an {@link AbstractXmlJobcopyOperation},
+     * the configuration is parsed here, and each {@link Template#perform(EnvVars, PrintStream)}
+     * works with a copy of the parsed Document.
+     *
+     * @param xmlString
+     *            XML string of the job to be copied (job/NAME/config.xml)
+     * @param encoding
+     *            encoding of the XML.
+     * @param logger
+     *            The output stream to log.
+     * @return the prepared configuration. Returns null if an error occurs.
+     */
+    public Template prepare(final String xmlString, final String encoding, final PrintStream logger)
+    {
+        final List<AbstractXmlJobcopyOperation> xmlOperationList = getXmlOperationsFrom(0);
+        if(xmlOperationList.isEmpty())
+        {
+            return new Template(xmlString, encoding, null, xmlOperationList);
+        }
+        try
+        {
+            final Document doc = AbstractXmlJobcopyOperation.getXmlDocumentFromString(xmlString, encoding, logger);
+            return new Template(xmlString, encoding, doc, xmlOperationList);
+        } catch (final Exception e)
+        {
+            logger.print("Error occured in XML operation");
+            e.printStackTrace(logger);
+            return null;
+        }
+    }
+
+    /**
+     * A configuration prepared to perform the operations for multiple times.
+     *
+     * Can be used from multiple threads.
+     */
+    public class Template
+    {
+        private final String xmlString;
+
+        private final String encoding;
+
+        private final Document doc;
+
+        private final List<AbstractXmlJobcopyOperation> xmlOperationList;
+
+        private Template(final String xmlString, final String encoding, final Document doc,
+                final List<AbstractXmlJobcopyOperation> xmlOperationList)
+        {
+            this.xmlString = xmlString;
+            this.encoding = encoding;
+            this.doc = doc;
+            this.xmlOperationList = xmlOperationList;
+        }
+
+        /**
+         * Returns the XML string of the original configuration.
+         *
+         * @return XML string of the job to be copied
+         */
+        public String getXmlString()
+        {
+            return xmlString;
+        }
+
+        /**
+         * Returns the encoding of the original configuration.
+         *
+         * @return encoding of the XML.
+         */
+        public String getEncoding()
+        {
+            return encoding;
+        }
+
+        /**
+         * Performs all the operations to a copy of the configuration.
+         *
+         * @param env
+         *            Variables used for the target.
+         * @param logger
+         *            The output stream to log.
+         * @return modified XML string. Returns null if an error occurs.
+         */
+        public String perform(final EnvVars env, final PrintStream logger)
+        {
+            return perform(env, logger, null);
+        }
+
+        /**
+         * Performs all the operations to a copy of the configuration, recording time of each phase.
+         *
+         * @param env
+         *            Variables used for the target.
+         * @param logger
+         *            The output stream to log.
+         * @param timings
+         *            timings to record each operation. null not to record.
+         * @return modified XML string. Returns null if an error occurs.
+         */
+        public String perform(final EnvVars env, final PrintStream logger, final PhaseTimings timings)
+        {
+            if(doc == null)
+            {
+                return JobcopyOperationPipeline.this.perform(0, xmlString, encoding, env, logger, timings);
+            }
+            final long start = System.nanoTime();
+            Document copy;
+            // DOM implementations are not thread-safe even for reading.
+            synchronized (doc)
+            {
+                copy = (Document) doc.cloneNode(true);
+            }
+            PhaseTimings.record(timings, "Copy the parsed configuration", start);
+            final String copiedXmlString = AbstractXmlJobcopyOperation.perform(xmlOperationList, copy, env, logger,
+                    timings, 0);
+            if(copiedXmlString == null)
+            {
+                return null;
+            }
+            return JobcopyOperationPipeline.this.perform(xmlOperationList.size(), copiedXmlString, encoding, env,
+                    logger, timings);
+        }
+    }
+
+    /**
+     * Performs the operations starting from the specified position.
+     */
+    private String perform(int pos, String xmlString, final String encoding, final EnvVars env,
+            final PrintStream logger, final PhaseTimings timings)
+    {
+        while(pos < jobcopyOperationList.size())
+        {
+            final List<AbstractXmlJobcopyOperation> xmlOperationList = getXmlOperationsFrom(pos);
+            if(xmlOperationList.size() >= 2)
+            {
+                // Each phase (parsing, operations and serializing) is recorded inside.
+                xmlString = AbstractXmlJobcopyOperation.perform(xmlOperationList, xmlString, encoding, env, logger,
+                        timings, pos);
+                pos += xmlOperationList.size();
+            } else
+            {
+                final long start = System.nanoTime();
+                final JobcopyOperation operation = jobcopyOperationList.get(pos);
+                final JobcopyEvents.OperationEvent event = JobcopyEvents.getInstance().newOperationEvent();
+                event.begin();
+                String result = null;
+                try
+                {
+                    result = operation.perform(xmlString, encoding, env, logger);
+                } finally
+                {
+                    // always ends the event not to leave it as the current one of the thread.
+                    event.commit(operation, result != null);
+                }
+                xmlString = result;
+                PhaseTimings.record(timings, PhaseTimings.getOperationPhaseName(pos, operation), start);
+                ++pos;
+            }
+            if(xmlString == null)
+            {
+                return null;
+            }
+        }
+        return xmlString;
+    }
+
+    /**
+     * Returns consecutive {@link AbstractXmlJobcopyOperation}s starting from the specified position.
+     *
+     * @param pos
+     *            the position to start from.
+     * @return the list of XML operations. Empty if the operation at pos is not an XML operation.
+     */
+    private List<AbstractXmlJobcopyOperation> getXmlOperationsFrom(final int pos)
+    {
+        final List<AbstractXmlJobcopyOperation> xmlOperationList = new ArrayList<AbstractXmlJobcopyOperation>();
+        for (int i = pos; i < jobcopyOperationList.size(); ++i)
+        {
+            final JobcopyOperation operation = jobcopyOperationList.get(i);
+            if(!(operation instanceof AbstractXmlJobcopyOperation))
+            {
+                break;
+            }
+            xmlOperationList.add((AbstractXmlJobcopyOperation) operation);
+        }
+        return xmlOperationList;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * A job to be copied to in the bulk mode of {@link JobcopyBuilder},
+ * with variables specific to that job.
+ *
+ * Targets are specified one per line in the following format:
+ * <pre>
+ * NAME[,KEY=VALUE[,KEY=VALUE...]]
+ * </pre>
+ * Blank lines and lines starting with &quot;#&quot; are ignored.
+ * Names and values cannot contain commas.
+ */
+class JobcopyTarget
+{
+    private final String jobName;
+
+    private final Map<String, String> variables;
+
+    /**
+     * Returns the name of the job to be copied to.
+     *
+     * May contain variable expressions.
+     *
+     * @return the name of the job to be copied to.
+     */
+    public String getJobName()
+    {
+        return jobName;
+    }
+
+    /**
+     * Returns variables specific to this target.
+     *
+     * @return variables. never null.
+     */
+    public Map<String, String> getVariables()
+    {
+        return variables;
+    }
+
+    /**
+     * constructor.
+     *
+     * @param jobName
+     *            the name of the job to be copied to.
+     * @param variables
+     *            variables specific to this target.
+     */
+    public JobcopyTarget(final String jobName, final Map<String, String> variables)
+    {
+        this.jobName = jobName;
+        this.variables = Collections.unmodifiableMap(new LinkedHashMap<String, String>(variables));
+    }
+
+    /**
+     * Parses the list of targets.
+     *
+     * @param text
+     *            targets, one per line.
+     * @return the list of targets. Empty if text is null.
+     * @throws IllegalArgumentException
+     *             text contains a malformed line.
+     */
+    public static List<JobcopyTarget> parse(final String text)
+    {
+        final List<JobcopyTarget> targetList = new ArrayList<JobcopyTarget>();
+        if(text == null)
+        {
+            return targetList;
+        }
+        final String[] lines = text.split("\r?\n");
+        for (int i = 0; i < lines.length; ++i)
+        {
+            final String line = lines[i].trim();
+            if(line.isEmpty() || line.startsWith("#"))
+            {
+                continue;
+            }
+            final String[] fields = line.split(",");
+            final String jobName = fields[0].trim();
+            if(jobName.isEmpty())
+            {
+                throw new IllegalArgumentException(String.format("Line %d: job name is empty", i + 1));
+            }
+            final Map<String, String> variables = new LinkedHashMap<String, String>();
+            for (int j = 1; j < fields.length; ++j)
+            {
+                final String field = fields[j].trim();
+                if(field.isEmpty())
+                {
+                    continue;
+                }
+                final int pos = field.indexOf('=');
+                if(pos <= 0 || StringUtils.isBlank(field.substring(0, pos)))
+                {
+                    throw new IllegalArgumentException(String.format("Line %d: malformed variable '%s'", i + 1,
+                            field));
+                }
+                variables.put(field.substring(0, pos).trim(), field.substring(pos + 1).trim());
+            }
+            targetList.add(new JobcopyTarget(jobName, variables));
+        }
+        return targetList;
+    }
+}
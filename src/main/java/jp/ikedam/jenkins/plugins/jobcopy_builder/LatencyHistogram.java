@@ -0,0 +1,191 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts recorded values in logarithmic buckets to estimate percentiles.
+ *
+ * Each power of 2 is divided into {@link #SUB_BUCKETS} buckets,
+ * and a percentile is estimated as the upper bound of the bucket containing it
+ * (less than 12.5% larger than the actual value).
+ * Memory usage is fixed regardless of the number of recorded values.
+ *
+ * Thread-safe and lock-free. Values recorded while reading may be reflected only partially.
+ */
+public class LatencyHistogram
+{
+    /**
+     * The number of buckets for each power of 2.
+     */
+    public static final int SUB_BUCKETS = 8;
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Returns the index of the bucket for a value.
+     *
+     * @param value
+     *            a value not negative.
+     * @return the index of the bucket.
+     */
+    static int getBucketIndex(final long value)
+    {
+        if(value < SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+        final int exp = 63 - Long.numberOfLeadingZeros(value);
+        final int sub = (int) (value >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exp - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the largest value in a bucket.
+     *
+     * @param index
+     *            the index of the bucket.
+     * @return the largest value in the bucket.
+     */
+    static long getBucketUpperBound(final int index)
+    {
+        if(index < SUB_BUCKETS)
+        {
+            return index;
+        }
+        final int exp = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final int sub = index % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1L) << (exp - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value
+     *            the value to record. Negative values are recorded as 0.
+     */
+    public void record(long value)
+    {
+        if(value < 0)
+        {
+            value = 0;
+        }
+        bucketCounts.incrementAndGet(getBucketIndex(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current = max.get();
+        while(value > current && !max.compareAndSet(current, value))
+        {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of recorded values.
+     */
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return the largest value. 0 if no values are recorded.
+     */
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     * Returns the average of recorded values.
+     *
+     * @return the average. 0 if no values are recorded.
+     */
+    public double getMean()
+    {
+        final long n = count.get();
+        return (n > 0) ? (double) sum.get() / n : 0;
+    }
+
+    /**
+     * Returns the estimated percentile.
+     *
+     * @param percentile
+     *            the percentile, from 0 to 100 (e.g. 99 for p99).
+     * @return the estimated value, not larger than the largest value. 0 if no values are recorded.
+     */
+    public long getPercentile(final double percentile)
+    {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; ++i)
+        {
+            total += bucketCounts.get(i);
+        }
+        if(total == 0)
+        {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100) / 100));
+        long accumulated = 0;
+        for (int i = 0; i < BUCKETS; ++i)
+        {
+            accumulated += bucketCounts.get(i);
+            if(accumulated >= rank)
+            {
+                return Math.min(getBucketUpperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Discards all recorded values.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < BUCKETS; ++i)
+        {
+            bucketCounts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes differences of texts by lines.
+ *
+ * Outputs only changed lines in the unified format without context lines:
+ * <pre>
+ * &#64;&#64; -3,2 +3,1 &#64;&#64;
+ * -removed line
+ * -removed line
+ * +added line
+ * </pre>
+ * Lines common at the beginning and the end are skipped first,
+ * and the rest is compared with LCS only when it is small enough.
+ * Otherwise the rest is reported as one replaced block.
+ *
+ * LCS is computed with Hirschberg's algorithm,
+ * which uses memory only proportional to the number of lines,
+ * as diffs may be computed for many jobs at the same time.
+ */
+class LineDiff
+{
+    /**
+     * The maximum number of pairs of lines to compare with LCS (lines of the original x lines of the modified).
+     */
+    public static final int MAX_CELLS = 1000000;
+
+    private LineDiff()
+    {
+    }
+
+    /**
+     * Splits a text into lines.
+     *
+     * @param text
+     *            a text.
+     * @return lines without line separators.
+     */
+    static List<String> splitLines(final String text)
+    {
+        final List<String> lines = new ArrayList<String>();
+        int start = 0;
+        for (int pos = 0; pos < text.length(); ++pos)
+        {
+            final char c = text.charAt(pos);
+            if(c == '\n' || c == '\r')
+            {
+                lines.add(text.substring(start, pos));
+                if(c == '\r' && pos + 1 < text.length() && text.charAt(pos + 1) == '\n')
+                {
+                    ++pos;
+                }
+                start = pos + 1;
+            }
+        }
+        if(start < text.length())
+        {
+            lines.add(text.substring(start));
+        }
+        return lines;
+    }
+
+    /**
+     * Returns differences of two texts.
+     *
+     * @param original
+     *            the original text.
+     * @param modified
+     *            the modified text.
+     * @return lines of differences. Empty if no lines differ.
+     */
+    public static List<String> diff(final String original, final String modified)
+    {
+        final List<String> a = splitLines(original);
+        final List<String> b = splitLines(modified);
+
+        // skip common lines at the beginning and the end.
+        int prefix = 0;
+        while(prefix < a.size() && prefix < b.size() && a.get(prefix).equals(b.get(prefix)))
+        {
+            ++prefix;
+        }
+        int suffix = 0;
+        while(suffix < a.size() - prefix && suffix < b.size() - prefix
+                && a.get(a.size() - 1 - suffix).equals(b.get(b.size() - 1 - suffix)))
+        {
+            ++suffix;
+        }
+        final List<String> aMiddle = a.subList(prefix, a.size() - suffix);
+        final List<String> bMiddle = b.subList(prefix, b.size() - suffix);
+
+        final List<String> output = new ArrayList<String>();
+        if(aMiddle.isEmpty() && bMiddle.isEmpty())
+        {
+            return output;
+        }
+        if((long) aMiddle.size() * bMiddle.size() > MAX_CELLS)
+        {
+            // too large to compare. Report as one block.
+            appendHunk(output, a, prefix, a.size() - suffix, b, prefix, b.size() - suffix);
+            return output;
+        }
+
+        // mark lines in LCS.
+        final int n = aMiddle.size();
+        final int m = bMiddle.size();
+        final boolean[] aCommon = new boolean[n];
+        final boolean[] bCommon = new boolean[m];
+        new Lcs(aMiddle, bMiddle, aCommon, bCommon).compute(0, n, 0, m);
+
+        // lines in LCS are paired in order. Report each run of other lines as a hunk.
+        int i = 0;
+        int j = 0;
+        while(i < n || j < m)
+        {
+            if(i < n && j < m && aCommon[i] && bCommon[j])
+            {
+                ++i;
+                ++j;
+                continue;
+            }
+            final int aStart = i;
+            final int bStart = j;
+            while(i < n && !aCommon[i])
+            {
+                ++i;
+            }
+            while(j < m && !bCommon[j])
+            {
+                ++j;
+            }
+            appendHunk(output, a, prefix + aStart, prefix + i, b, prefix + bStart, prefix + j);
+        }
+        return output;
+    }
+
+    /**
+     * Computes LCS with Hirschberg's algorithm.
+     *
+     * The original is split at the middle, and the modified is split where
+     * the sum of the lengths of LCS of the former halves and the latter halves is the largest.
+     * Each half is computed in the same way.
+     * Lengths of LCS are computed only by rows, and two rows are enough for the whole computation.
+     */
+    private static class Lcs
+    {
+        private final List<String> a;
+        private final List<String> b;
+        private final boolean[] aCommon;
+        private final boolean[] bCommon;
+        private final int[] forward;
+        private final int[] backward;
+
+        public Lcs(final List<String> a, final List<String> b, final boolean[] aCommon, final boolean[] bCommon)
+        {
+            this.a = a;
+            this.b = b;
+            this.aCommon = aCommon;
+            this.bCommon = bCommon;
+            this.forward = new int[b.size() + 1];
+            this.backward = new int[b.size() + 1];
+        }
+
+        /**
+         * Marks lines in LCS of a[aFrom..aTo) and b[bFrom..bTo).
+         */
+        public void compute(final int aFrom, final int aTo, final int bFrom, final int bTo)
+        {
+            if(aFrom >= aTo || bFrom >= bTo)
+            {
+                return;
+            }
+            if(aTo - aFrom == 1)
+            {
+                for (int j = bFrom; j < bTo; ++j)
+                {
+                    if(a.get(aFrom).equals(b.get(j)))
+                    {
+                        aCommon[aFrom] = true;
+                        bCommon[j] = true;
+                        return;
+                    }
+                }
+                return;
+            }
+
+            final int aMiddle = (aFrom + aTo) / 2;
+            final int length = bTo - bFrom;
+
+            // forward[k]: the length of LCS of a[aFrom..aMiddle) and b[bFrom..bFrom+k)
+            Arrays.fill(forward, 0, length + 1, 0);
+            for (int i = aFrom; i < aMiddle; ++i)
+            {
+                int diagonal = 0;
+                for (int k = 1; k <= length; ++k)
+                {
+                    final int above = forward[k];
+                    forward[k] = a.get(i).equals(b.get(bFrom + k - 1)) ? diagonal + 1
+                            : Math.max(above, forward[k - 1]);
+                    diagonal = above;
+                }
+            }
+
+            // backward[k]: the length of LCS of a[aMiddle..aTo) and b[bFrom+k..bTo)
+            Arrays.fill(backward, 0, length + 1, 0);
+            for (int i = aTo - 1; i >= aMiddle; --i)
+            {
+                int diagonal = 0;
+                for (int k = length - 1; k >= 0; --k)
+                {
+                    final int below = backward[k];
+                    backward[k] = a.get(i).equals(b.get(bFrom + k)) ? diagonal + 1
+                            : Math.max(below, backward[k + 1]);
+                    diagonal = below;
+                }
+            }
+
+            int split = 0;
+            for (int k = 1; k <= length; ++k)
+            {
+                if(forward[k] + backward[k] > forward[split] + backward[split])
+                {
+                    split = k;
+                }
+            }
+
+            // rows are no longer used, and can be reused in the halves.
+            compute(aFrom, aMiddle, bFrom, bFrom + split);
+            compute(aMiddle, aTo, bFrom + split, bTo);
+        }
+    }
+
+    private static void appendHunk(final List<String> output, final List<String> a, final int aFrom, final int aTo,
+            final List<String> b, final int bFrom, final int bTo)
+    {
+        output.add(String.format("@@ -%s +%s @@", getRange(aFrom, aTo), getRange(bFrom, bTo)));
+        for (int i = aFrom; i < aTo; ++i)
+        {
+            output.add("-" + a.get(i));
+        }
+        for (int j = bFrom; j < bTo; ++j)
+        {
+            output.add("+" + b.get(j));
+        }
+    }
+
+    /**
+     * Returns a range in the unified format (1-origin).
+     */
+    private static String getRange(final int from, final int to)
+    {
+        final int count = to - from;
+        if(count == 1)
+        {
+            return Integer.toString(from + 1);
+        }
+        // for an empty range, the line before the range is reported.
+        return String.format("%d,%d", (count == 0) ? from : from + 1, count);
+    }
+}
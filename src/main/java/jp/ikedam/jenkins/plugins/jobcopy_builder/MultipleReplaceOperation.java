@@ -0,0 +1,211 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.model.Descriptor;
+
+/**
+ * Replace multiple strings in the configuration at once.
+ *
+ * Each text is scanned only once however many strings are to be replaced.
+ * Unlike multiple {@link ReplaceOperation}s, replaced strings are never replaced again.
+ *
+ * @see AhoCorasickReplacer
+ */
+public class MultipleReplaceOperation extends AbstractXmlJobcopyOperation implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The internal class to work with views.
+     *
+     * The following files are used (put in main/resource directory in the source tree).
+     * <dl>
+     * <dt>config.jelly</dt>
+     * <dd>shown in the job configuration page, as an additional view to a Jobcopy build step.</dd>
+     * </dl>
+     */
+    @Extension
+    public static class DescriptorImpl extends Descriptor<JobcopyOperation>
+    {
+        /**
+         * Returns the string to be shown in a job configuration page, in the dropdown of &quot;Add Copy Operation&quot;.
+         *
+         * @return the display name
+         * @see hudson.model.Descriptor#getDisplayName()
+         */
+        @Override
+        public String getDisplayName()
+        {
+            return Messages.MultipleReplaceOperation_DisplayName();
+        }
+    }
+
+    private List<ReplaceEntry> replaceList;
+
+    /**
+     * Returns the list of strings to be replaced and to be replaced with.
+     *
+     * @return the list of strings to be replaced and to be replaced with.
+     */
+    public List<ReplaceEntry> getReplaceList()
+    {
+        return replaceList;
+    }
+
+    private boolean expandFromStr;
+
+    /**
+     * Returns whether expand variables in strings to be replaced.
+     *
+     * @return whether expand variables in strings to be replaced.
+     */
+    public boolean isExpandFromStr()
+    {
+        return expandFromStr;
+    }
+
+    private boolean expandToStr;
+
+    /**
+     * Returns whether expand variables in strings to be replaced with.
+     *
+     * @return whether expand variables in strings to be replaced with.
+     */
+    public boolean isExpandToStr()
+    {
+        return expandToStr;
+    }
+
+    /**
+     * Constructor to instantiate from parameters in the job configuration page.
+     *
+     * When instantiating from the saved configuration, the object is directly serialized with XStream, and no constructor is used.
+     *
+     * @param replaceList
+     *            the list of strings to be replaced and to be replaced with.
+     * @param expandFromStr
+     *            whether expand variables in strings to be replaced.
+     * @param expandToStr
+     *            whether expand variables in strings to be replaced with.
+     */
+    @DataBoundConstructor
+    public MultipleReplaceOperation(final List<ReplaceEntry> replaceList, final boolean expandFromStr,
+            final boolean expandToStr)
+    {
+        this.replaceList = replaceList;
+        this.expandFromStr = expandFromStr;
+        this.expandToStr = expandToStr;
+    }
+
+    /**
+     * Returns modified XML Document of the job configuration.
+     *
+     * Replace the strings in the job configuration: only applied to strings in text nodes and CDATA sections, so the XML structure is never destroyed.
+     *
+     * @param doc
+     *            XML Document of the job to be copied (job/NAME/config.xml)
+     * @param env
+     *            Variables defined in the build.
+     * @param logger
+     *            The output stream to log.
+     * @return modified XML Document. Return null if an error occurs.
+     * @see jp.ikedam.jenkins.plugins.jobcopy_builder.AbstractXmlJobcopyOperation#perform(org.w3c.dom.Document, hudson.EnvVars, java.io.PrintStream)
+     */
+    @Override
+    public Document perform(final Document doc, final EnvVars env, final PrintStream logger)
+    {
+        if(getReplaceList() == null || getReplaceList().isEmpty())
+        {
+            logger.println("No strings to replace are specified");
+            return null;
+        }
+
+        final List<String> fromStrList = new ArrayList<String>(getReplaceList().size());
+        final List<String> toStrList = new ArrayList<String>(getReplaceList().size());
+        for (final ReplaceEntry entry : getReplaceList())
+        {
+            final String fromStr = entry.getFromStr();
+            if(StringUtils.isEmpty(fromStr))
+            {
+                logger.println("From String is empty");
+                return null;
+            }
+            final String expandedFromStr = isExpandFromStr() ? env.expand(fromStr) : fromStr;
+            if(StringUtils.isEmpty(expandedFromStr))
+            {
+                logger.println("From String got to be empty");
+                return null;
+            }
+
+            final String toStr = StringUtils.defaultString(entry.getToStr());
+            final String expandedToStr = StringUtils.defaultString(isExpandToStr() ? env.expand(toStr) : toStr);
+
+            fromStrList.add(expandedFromStr);
+            toStrList.add(expandedToStr);
+        }
+
+        final AhoCorasickReplacer replacer = new AhoCorasickReplacer(fromStrList, toStrList);
+        try
+        {
+            // Perform replacing to all text nodes and CDATA sections.
+            final int[] countList = new int[fromStrList.size()];
+            for (final Node node : getTextNodeList(doc))
+            {
+                final String nodeValue = node.getNodeValue();
+                final String newNodeValue = replacer.replace(nodeValue, countList);
+                if(newNodeValue != nodeValue)
+                {
+                    node.setNodeValue(newNodeValue);
+                }
+            }
+            for (int i = 0; i < fromStrList.size(); ++i)
+            {
+                logger.println(String.format("Replacing: %s -> %s (%d replaced)", fromStrList.get(i), toStrList.get(i),
+                        countList[i]));
+                JobcopyMetrics.getInstance().recordReplacements(countList[i]);
+                JobcopyEvents.getInstance().addMatches(countList[i]);
+            }
+
+            return doc;
+        } catch (final Exception e)
+        {
+            logger.print("Error occured in XML operation");
+            e.printStackTrace(logger);
+            return null;
+        }
+    }
+}
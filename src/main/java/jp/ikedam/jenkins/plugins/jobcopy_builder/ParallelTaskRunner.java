@@ -0,0 +1,279 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on a bounded pool of threads.
+ *
+ * Each task logs to its own buffer,
+ * and buffers are written to the logger in the order of tasks,
+ * so logs of a task are never mixed with logs of other tasks.
+ * When the parallelism is 1 or less, tasks run in the current thread
+ * and log directly to the logger.
+ *
+ * All runs share one pool of threads, created when first used.
+ * Threads are kept for a while after tasks finish,
+ * and per-thread caches of parsers, transformers and XPath expressions are reused.
+ * Tasks run from a thread of the pool (e.g. additional files of jobs copied in parallel)
+ * run in that thread, not to multiply threads nor to wait for threads occupied by the caller.
+ */
+class ParallelTaskRunner
+{
+    /**
+     * The default maximum number of threads in the pool.
+     */
+    public static final int DEFAULT_MAX_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * The maximum number of threads in the pool, shared by all builds.
+     *
+     * Can be changed with the system property
+     * <code>jp.ikedam.jenkins.plugins.jobcopy_builder.ParallelTaskRunner.maxThreads</code>.
+     */
+    static final int MAX_THREADS = Math.max(
+            Integer.getInteger(ParallelTaskRunner.class.getName() + ".maxThreads", DEFAULT_MAX_THREADS),
+            1);
+
+    /**
+     * Threads without tasks are terminated after this time.
+     */
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * Holds the pool to create it only when used.
+     */
+    private static class PoolHolder
+    {
+        private static final ThreadPoolExecutor POOL;
+
+        static
+        {
+            POOL = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new WorkerThreadFactory());
+            POOL.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * A task run by {@link ParallelTaskRunner}.
+     *
+     * @param <V> the type of the result.
+     */
+    public interface Task<V>
+    {
+        /**
+         * Runs the task.
+         *
+         * @param logger
+         *            The output stream to log.
+         * @return the result.
+         * @throws Exception
+         *             logged and the result is treated as null.
+         */
+        V call(PrintStream logger) throws Exception;
+    }
+
+    private ParallelTaskRunner()
+    {
+    }
+
+    /**
+     * Runs tasks and returns their results.
+     *
+     * @param taskList
+     *            tasks to run.
+     * @param parallelism
+     *            the maximum number of tasks run at the same time.
+     *            Also limited by the number of threads in the pool shared by all runs.
+     * @param name
+     *            used for names of threads.
+     * @param logger
+     *            The output stream to log.
+     * @return results in the order of tasks. null for tasks failed with exceptions.
+     * @throws InterruptedException
+     *             interrupted. Running tasks are interrupted and others are cancelled.
+     */
+    public static <V> List<V> run(final List<? extends Task<V>> taskList, final int parallelism, final String name,
+            final PrintStream logger) throws InterruptedException
+    {
+        final List<V> resultList = new ArrayList<V>(taskList.size());
+        if(parallelism <= 1 || taskList.size() <= 1 || Thread.currentThread() instanceof WorkerThread)
+        {
+            for (final Task<V> task : taskList)
+            {
+                resultList.add(call(task, logger));
+            }
+            return resultList;
+        }
+
+        final List<ByteArrayOutputStream> bufferList = new ArrayList<ByteArrayOutputStream>(taskList.size());
+        final List<FutureTask<V>> futureList = new ArrayList<FutureTask<V>>(taskList.size());
+        for (final Task<V> task : taskList)
+        {
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            bufferList.add(buffer);
+            futureList.add(new FutureTask<V>(new Callable<V>()
+            {
+                @Override
+                public V call() throws Exception
+                {
+                    final PrintStream taskLogger = new PrintStream(buffer, true);
+                    try
+                    {
+                        return ParallelTaskRunner.call(task, taskLogger);
+                    } finally
+                    {
+                        taskLogger.flush();
+                    }
+                }
+            }));
+        }
+
+        // Only as many workers as the parallelism take tasks in order,
+        // not to occupy the shared pool.
+        final AtomicInteger next = new AtomicInteger();
+        final List<Future<?>> workerList = new ArrayList<Future<?>>();
+        try
+        {
+            for (int i = 0; i < Math.min(parallelism, taskList.size()); ++i)
+            {
+                final int workerIndex = i + 1;
+                workerList.add(PoolHolder.POOL.submit(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        final Thread thread = Thread.currentThread();
+                        final String origName = thread.getName();
+                        thread.setName(String.format("%s #%d", name, workerIndex));
+                        try
+                        {
+                            for (int index = next.getAndIncrement(); index < futureList.size(); index = next
+                                    .getAndIncrement())
+                            {
+                                // does nothing if already cancelled.
+                                futureList.get(index).run();
+                            }
+                        } finally
+                        {
+                            thread.setName(origName);
+                            // not to leave the interrupted state to the next work.
+                            Thread.interrupted();
+                        }
+                    }
+                }));
+            }
+            for (int i = 0; i < futureList.size(); ++i)
+            {
+                V result;
+                try
+                {
+                    result = futureList.get(i).get();
+                } catch (final ExecutionException e)
+                {
+                    // exceptions other than InterruptedException are handled in call().
+                    if(e.getCause() instanceof Error)
+                    {
+                        throw (Error) e.getCause();
+                    }
+                    throw (InterruptedException) new InterruptedException().initCause(e.getCause());
+                }
+                // Future#get() guarantees the buffer is visible in this thread.
+                final byte[] bytes = bufferList.get(i).toByteArray();
+                logger.write(bytes, 0, bytes.length);
+                logger.flush();
+                resultList.add(result);
+            }
+            return resultList;
+        } finally
+        {
+            // Nothing to do when all tasks are finished.
+            // Otherwise, interrupts running tasks and cancels others.
+            for (final FutureTask<V> future : futureList)
+            {
+                future.cancel(true);
+            }
+            for (final Future<?> worker : workerList)
+            {
+                worker.cancel(false);
+            }
+        }
+    }
+
+    private static <V> V call(final Task<V> task, final PrintStream logger) throws InterruptedException
+    {
+        try
+        {
+            return task.call(logger);
+        } catch (final InterruptedException e)
+        {
+            throw e;
+        } catch (final Exception e)
+        {
+            e.printStackTrace(logger);
+            return null;
+        }
+    }
+
+    /**
+     * A thread of the pool.
+     */
+    private static class WorkerThread extends Thread
+    {
+        public WorkerThread(final Runnable r, final String name)
+        {
+            super(r, name);
+        }
+    }
+
+    /**
+     * Creates daemon threads with names.
+     */
+    private static class WorkerThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable r)
+        {
+            final Thread thread = new WorkerThread(r, String.format("Jobcopy worker #%d", count.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Caches compiled regular expressions.
+ *
+ * Pattern is immutable and thread-safe,
+ * so a single cache is shared by all threads.
+ * Invalid expressions are not cached.
+ */
+class PatternCache
+{
+    /**
+     * The maximum number of patterns cached.
+     */
+    public static final int MAX_SIZE = 256;
+
+    private static final AtomicLong hitCount = new AtomicLong();
+
+    private static final AtomicLong missCount = new AtomicLong();
+
+    private static final Map<Key, Pattern> patternMap = new BoundedLruMap<Key, Pattern>(MAX_SIZE);
+
+    /**
+     * Key of the cache: an expression and flags.
+     */
+    private static class Key
+    {
+        private final String regex;
+
+        private final int flags;
+
+        public Key(final String regex, final int flags)
+        {
+            this.regex = regex;
+            this.flags = flags;
+        }
+
+        @Override
+        public boolean equals(final Object obj)
+        {
+            if(!(obj instanceof Key))
+            {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return flags == other.flags && regex.equals(other.regex);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return regex.hashCode() * 31 + flags;
+        }
+    }
+
+    private PatternCache()
+    {
+    }
+
+    /**
+     * Returns the compiled pattern, compiling it only when not cached.
+     *
+     * @param regex
+     *            regular expression.
+     * @return compiled pattern.
+     * @throws PatternSyntaxException
+     *             the expression is invalid.
+     */
+    public static Pattern compile(final String regex)
+    {
+        return compile(regex, 0);
+    }
+
+    /**
+     * Returns the compiled pattern, compiling it only when not cached.
+     *
+     * @param regex
+     *            regular expression.
+     * @param flags
+     *            match flags passed to {@link Pattern#compile(String, int)}.
+     * @return compiled pattern.
+     * @throws PatternSyntaxException
+     *             the expression is invalid.
+     */
+    public static Pattern compile(final String regex, final int flags)
+    {
+        final Key key = new Key(regex, flags);
+        Pattern pattern;
+        synchronized (patternMap)
+        {
+            pattern = patternMap.get(key);
+        }
+        if(pattern != null)
+        {
+            hitCount.incrementAndGet();
+            return pattern;
+        }
+        missCount.incrementAndGet();
+        // compile outside the lock. Compiling twice in a race is harmless.
+        pattern = Pattern.compile(regex, flags);
+        synchronized (patternMap)
+        {
+            patternMap.put(key, pattern);
+        }
+        return pattern;
+    }
+
+    /**
+     * Returns how many times compiled patterns are reused.
+     *
+     * @return the number of cache hits.
+     */
+    public static long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns how many times patterns are compiled.
+     *
+     * @return the number of cache misses.
+     */
+    public static long getMissCount()
+    {
+        return missCount.get();
+    }
+}
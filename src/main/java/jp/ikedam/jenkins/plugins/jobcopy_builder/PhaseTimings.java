@@ -0,0 +1,276 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Time spent in each phase of copying a job.
+ *
+ * Times are measured with {@link System#nanoTime()}:
+ * <pre>
+ * long t = System.nanoTime();
+ * (phase 1)
+ * t = PhaseTimings.record(timings, "Phase 1", t);
+ * (phase 2)
+ * t = PhaseTimings.record(timings, "Phase 2", t);
+ * </pre>
+ *
+ * Thread-safe.
+ */
+public class PhaseTimings implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Time spent in a phase.
+     */
+    public static class Phase implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+
+        private final long nanos;
+
+        private final boolean shared;
+
+        /**
+         * constructor.
+         *
+         * @param name
+         *            the name of the phase.
+         * @param nanos
+         *            the time spent in the phase, in nanoseconds.
+         */
+        public Phase(final String name, final long nanos)
+        {
+            this(name, nanos, false);
+        }
+
+        /**
+         * constructor.
+         *
+         * @param name
+         *            the name of the phase.
+         * @param nanos
+         *            the time spent in the phase, in nanoseconds.
+         * @param shared
+         *            whether the phase is shared by multiple jobs copied to.
+         */
+        public Phase(final String name, final long nanos, final boolean shared)
+        {
+            this.name = name;
+            this.nanos = nanos;
+            this.shared = shared;
+        }
+
+        /**
+         * Returns the name of the phase.
+         *
+         * @return the name of the phase.
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * Returns the time spent in the phase.
+         *
+         * @return the time in nanoseconds.
+         */
+        public long getNanos()
+        {
+            return nanos;
+        }
+
+        /**
+         * Returns whether the phase is shared by multiple jobs copied to.
+         *
+         * Shared phases are not included in {@link PhaseTimings#getTotalNanos()}.
+         *
+         * @return whether the phase is shared.
+         */
+        public boolean isShared()
+        {
+            return shared;
+        }
+
+        /**
+         * Returns the time spent in the phase to display.
+         *
+         * @return the time in milliseconds, like "12.345 ms".
+         */
+        public String getDurationString()
+        {
+            return formatNanos(nanos);
+        }
+    }
+
+    private final List<Phase> phaseList = new ArrayList<Phase>();
+
+    /**
+     * constructor.
+     */
+    public PhaseTimings()
+    {
+    }
+
+    /**
+     * Creates timings starting with the phases recorded in another.
+     *
+     * Used for phases shared by multiple jobs copied to.
+     *
+     * @param base
+     *            the timings to copy phases from. may be null.
+     */
+    public PhaseTimings(final PhaseTimings base)
+    {
+        if(base != null)
+        {
+            phaseList.addAll(base.getPhaseList());
+        }
+    }
+
+    /**
+     * Returns timings with the same phases marked as shared.
+     *
+     * Used for phases performed only once for multiple jobs copied to,
+     * not to count them for each of those jobs.
+     *
+     * @return timings with shared phases.
+     */
+    public PhaseTimings toShared()
+    {
+        final PhaseTimings shared = new PhaseTimings();
+        for (final Phase phase : getPhaseList())
+        {
+            shared.phaseList.add(new Phase(phase.getName(), phase.getNanos(), true));
+        }
+        return shared;
+    }
+
+    /**
+     * Records a phase ending now.
+     *
+     * @param name
+     *            the name of the phase.
+     * @param startNanos
+     *            when the phase started, retrieved with {@link System#nanoTime()}.
+     * @return the current time, which can be used as the start of the next phase.
+     */
+    public long record(final String name, final long startNanos)
+    {
+        final long now = System.nanoTime();
+        synchronized (phaseList)
+        {
+            phaseList.add(new Phase(name, now - startNanos));
+        }
+        return now;
+    }
+
+    /**
+     * Records a phase ending now, if timings are specified.
+     *
+     * @param timings
+     *            timings to record the phase. null not to record.
+     * @param name
+     *            the name of the phase.
+     * @param startNanos
+     *            when the phase started, retrieved with {@link System#nanoTime()}.
+     * @return the current time, which can be used as the start of the next phase.
+     */
+    public static long record(final PhaseTimings timings, final String name, final long startNanos)
+    {
+        if(timings == null)
+        {
+            return System.nanoTime();
+        }
+        return timings.record(name, startNanos);
+    }
+
+    /**
+     * Returns recorded phases.
+     *
+     * @return phases in the recorded order.
+     */
+    public List<Phase> getPhaseList()
+    {
+        synchronized (phaseList)
+        {
+            return Collections.unmodifiableList(new ArrayList<Phase>(phaseList));
+        }
+    }
+
+    /**
+     * Returns the total time of recorded phases, excluding shared phases.
+     *
+     * @return the time in nanoseconds.
+     */
+    public long getTotalNanos()
+    {
+        long total = 0;
+        for (final Phase phase : getPhaseList())
+        {
+            if(!phase.isShared())
+            {
+                total += phase.getNanos();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the total time of recorded phases to display, excluding shared phases.
+     *
+     * @return the time in milliseconds, like "12.345 ms".
+     */
+    public String getTotalDurationString()
+    {
+        return formatNanos(getTotalNanos());
+    }
+
+    /**
+     * Returns the name of an operation used as the name of a phase.
+     *
+     * @param index
+     *            the position of the operation, starting from 0.
+     * @param operation
+     *            the operation.
+     * @return the name of the phase, like "Operation 1: ReplaceOperation".
+     */
+    public static String getOperationPhaseName(final int index, final Object operation)
+    {
+        return String.format("Operation %d: %s", index + 1, operation.getClass().getSimpleName());
+    }
+
+    private static String formatNanos(final long nanos)
+    {
+        return String.format("%.3f ms", nanos / 1000000.0);
+    }
+}
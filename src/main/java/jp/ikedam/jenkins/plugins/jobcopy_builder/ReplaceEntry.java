@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.io.Serializable;
+
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import hudson.Extension;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.util.FormValidation;
+
+/**
+ * A pair of strings to be replaced and to be replaced with,
+ * used in {@link MultipleReplaceOperation}.
+ */
+public class ReplaceEntry extends AbstractDescribableImpl<ReplaceEntry> implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private String fromStr;
+
+    /**
+     * Returns the string to be replaced.
+     *
+     * @return the string to be replaced.
+     */
+    public String getFromStr()
+    {
+        return fromStr;
+    }
+
+    private String toStr;
+
+    /**
+     * Returns the string to be replaced with.
+     *
+     * @return the string to be replaced with.
+     */
+    public String getToStr()
+    {
+        return toStr;
+    }
+
+    /**
+     * Constructor to instantiate from parameters in the job configuration page.
+     *
+     * When instantiating from the saved configuration, the object is directly serialized with XStream, and no constructor is used.
+     *
+     * @param fromStr
+     *            the string to be replaced.
+     * @param toStr
+     *            the string to be replaced with.
+     */
+    @DataBoundConstructor
+    public ReplaceEntry(final String fromStr, final String toStr)
+    {
+        this.fromStr = fromStr;
+        this.toStr = toStr;
+    }
+
+    /**
+     * The internal class to work with views.
+     *
+     * The following files are used (put in main/resource directory in the source tree).
+     * <dl>
+     * <dt>config.jelly</dt>
+     * <dd>shown as a part of a job configuration page.</dd>
+     * </dl>
+     */
+    @Extension
+    public static class DescriptorImpl extends Descriptor<ReplaceEntry>
+    {
+        /**
+         * Returns the display name
+         *
+         * This is used nowhere...
+         *
+         * @return the display name
+         * @see hudson.model.Descriptor#getDisplayName()
+         */
+        @Override
+        public String getDisplayName()
+        {
+            return Messages.ReplaceEntry_DisplayName();
+        }
+
+        /**
+         * Validate the value input to "From String"
+         *
+         * @param fromStr
+         * @return FormValidation object.
+         */
+        public FormValidation doCheckFromStr(@QueryParameter final String fromStr)
+        {
+            if(StringUtils.isEmpty(fromStr))
+            {
+                return FormValidation.error(Messages.ReplaceOperation_fromStr_empty());
+            }
+
+            final String trimmed = StringUtils.trim(fromStr);
+            if(!trimmed.equals(fromStr))
+            {
+                return FormValidation.warning(Messages.ReplaceOperation_fromStr_enclosedWithBlank());
+            }
+
+            return FormValidation.ok();
+        }
+    }
+}
@@ -28,7 +28,6 @@ import java.io.Serializable;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 import hudson.EnvVars;
 import hudson.Extension;
@@ -179,7 +178,7 @@ public class ReplaceOperation extends AbstractXmlJobcopyOperation implements Ser
      * Returns modified XML Document of the job configuration.
      * 
      * Replace the strings in the job configuration: 
-     * only applied to strings in text nodes, so the XML structure is never destroyed. 
+     * only applied to strings in text nodes and CDATA sections, so the XML structure is never destroyed. 
      * 
      * @param doc       XML Document of the job to be copied (job/NAME/config.xml)
      * @param env       Variables defined in the build.
@@ -217,17 +216,21 @@ public class ReplaceOperation extends AbstractXmlJobcopyOperation implements Ser
         logger.print("Replacing: " + expandedFromStr + " -> " + expandedToStr);
         try
         {
-            // Retrieve all text nodes.
-            NodeList textNodeList = getNodeList(doc, "//text()");
-            
-            // Perform replacing to all text nodes.
-            // NodeList does not implement Collection, and foreach is not usable.
-            for(int i = 0; i < textNodeList.getLength(); ++i)
+            // Perform replacing to all text nodes and CDATA sections.
+            int count = 0;
+            for(Node node: getTextNodeList(doc))
             {
-                Node node = textNodeList.item(i);
-                node.setNodeValue(StringUtils.replace(node.getNodeValue(), expandedFromStr, expandedToStr));
+                String nodeValue = node.getNodeValue();
+                int matches = StringUtils.countMatches(nodeValue, expandedFromStr);
+                if(matches > 0)
+                {
+                    count += matches;
+                    node.setNodeValue(StringUtils.replace(nodeValue, expandedFromStr, expandedToStr));
+                }
             }
-            logger.println("");
+            logger.println(String.format(" (%d replaced)", count));
+            JobcopyMetrics.getInstance().recordReplacements(count);
+            JobcopyEvents.getInstance().addMatches(count);
             
             return doc;
         }
@@ -34,7 +34,6 @@ import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.QueryParameter;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 import hudson.EnvVars;
 import hudson.Extension;
@@ -94,8 +93,7 @@ public class ReplaceRegExpOperation extends AbstractXmlJobcopyOperation implemen
 
             try
             {
-                @SuppressWarnings("unused")
-                final Pattern pattern = Pattern.compile(expandFromStr ? maskSpecialChars(fromStr) : fromStr);
+                PatternCache.compile(expandFromStr ? maskSpecialChars(fromStr) : fromStr);
             } catch (final PatternSyntaxException e)
             {
                 return FormValidation.warning(Messages.ReplaceRegExpOperation_fromStr_errorOnRegExp() + e.getMessage());
@@ -119,8 +117,7 @@ public class ReplaceRegExpOperation extends AbstractXmlJobcopyOperation implemen
 
             try
             {
-                @SuppressWarnings("unused")
-                final Pattern pattern = Pattern.compile(expandToStr ? maskSpecialChars(toStr) : toStr);
+                PatternCache.compile(expandToStr ? maskSpecialChars(toStr) : toStr);
             } catch (final PatternSyntaxException e)
             {
                 return FormValidation.warning(Messages.ReplaceRegExpOperation_toStr_errorOnRegExp() + e.getMessage());
@@ -204,7 +201,7 @@ public class ReplaceRegExpOperation extends AbstractXmlJobcopyOperation implemen
     /**
      * Returns modified XML Document of the job configuration.
      *
-     * Replace the strings in the job configuration: only applied to strings in text nodes, so the XML structure is never destroyed.
+     * Replace the strings in the job configuration: only applied to strings in text nodes and CDATA sections, so the XML structure is never destroyed.
      *
      * @param doc
      *            XML Document of the job to be copied (job/NAME/config.xml)
@@ -235,7 +232,7 @@ public class ReplaceRegExpOperation extends AbstractXmlJobcopyOperation implemen
         Pattern pattern;
         try
         {
-            pattern = Pattern.compile(expandedFromStr);
+            pattern = PatternCache.compile(expandedFromStr);
         } catch (final PatternSyntaxException e)
         {
             logger.println("Error on regular expression: " + e.getMessage());
@@ -256,25 +253,31 @@ public class ReplaceRegExpOperation extends AbstractXmlJobcopyOperation implemen
         logger.print("Replacing with RegExp: " + expandedFromStr + " -> " + expandedToStr);
         try
         {
-            // Retrieve all text nodes.
-            final NodeList textNodeList = getNodeList(doc, "//text()");
-
-            // Perform replacing to all text nodes.
-            // NodeList does not implement Collection, and foreach is not usable.
-            for (int i = 0; i < textNodeList.getLength(); ++i)
+            // Perform replacing to all text nodes and CDATA sections.
+            final Matcher matcher = pattern.matcher("");
+            int count = 0;
+            for (final Node node : getTextNodeList(doc))
             {
-                final Node node = textNodeList.item(i);
                 final String nodeValue = node.getNodeValue();
-                String newNodeValue = nodeValue;
-                final Matcher matcher = pattern.matcher(nodeValue);
-                // check all occurance
-                while(matcher.find())
+                matcher.reset(nodeValue);
+                if(!matcher.find())
                 {
-                    newNodeValue = matcher.replaceAll(expandedToStr);
+                    // nothing to replace in this node.
+                    continue;
                 }
-                node.setNodeValue(newNodeValue);
+                // replace all occurrences in a single pass.
+                final StringBuffer newNodeValue = new StringBuffer(nodeValue.length());
+                do
+                {
+                    matcher.appendReplacement(newNodeValue, expandedToStr);
+                    ++count;
+                } while(matcher.find());
+                matcher.appendTail(newNodeValue);
+                node.setNodeValue(newNodeValue.toString());
             }
-            logger.println("");
+            logger.println(String.format(" (%d replaced)", count));
+            JobcopyMetrics.getInstance().recordReplacements(count);
+            JobcopyEvents.getInstance().addMatches(count);
 
             return doc;
         } catch (final Exception e)
@@ -285,9 +288,11 @@ public class ReplaceRegExpOperation extends AbstractXmlJobcopyOperation implemen
         }
     }
 
+    private static final Pattern SPECIAL_CHARS = Pattern.compile("([\\{\\$])");
+
     public static String maskSpecialChars(final String value)
     {
         // return value.replaceAll("([\\\\\\.\\[\\{\\(\\*\\+\\?\\^\\$\\|])", "\\\\$1");
-        return value.replaceAll("([\\{\\$])", "\\\\$1");
+        return SPECIAL_CHARS.matcher(value).replaceAll("\\\\$1");
     }
 }
@@ -0,0 +1,379 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import hudson.EnvVars;
+
+/**
+ * Caches configurations transformed with {@link JobcopyOperation}s.
+ *
+ * A result is identified with the digest of following values:
+ * <ul>
+ * <li>the source configuration and its encoding</li>
+ * <li>the serialized operations</li>
+ * <li>values of variables referenced in the serialized operations
+ * (<code>$NAME</code> or <code>${NAME}</code>)</li>
+ * </ul>
+ * This assumes operations depend only on their configurations
+ * and variables referenced in them.
+ *
+ * Entries are discarded when they get older than the time to live,
+ * or in the least recently used order when the total length exceeds the limit.
+ * Thread-safe.
+ */
+class TransformationCache
+{
+    /**
+     * The default maximum total length of cached configurations, in characters.
+     *
+     * Can be changed with the system property
+     * <code>jp.ikedam.jenkins.plugins.jobcopy_builder.TransformationCache.maxLength</code>.
+     */
+    public static final int DEFAULT_MAX_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * The default time to live of entries, in seconds.
+     *
+     * Can be changed with the system property
+     * <code>jp.ikedam.jenkins.plugins.jobcopy_builder.TransformationCache.ttl</code>.
+     */
+    public static final int DEFAULT_TTL = 60 * 60;
+
+    private static final TransformationCache INSTANCE = new TransformationCache(
+            Integer.getInteger(TransformationCache.class.getName() + ".maxLength", DEFAULT_MAX_LENGTH),
+            TimeUnit.SECONDS.toMillis(Integer.getInteger(TransformationCache.class.getName() + ".ttl", DEFAULT_TTL)));
+
+    /**
+     * Variable expressions expanded with {@link EnvVars#expand(String)}.
+     */
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\$\\{([^}]*)\\}|\\$([A-Za-z0-9_.]+)");
+
+    /**
+     * Returns the cache shared in the Jenkins instance.
+     *
+     * @return the shared cache.
+     */
+    public static TransformationCache getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private final long maxLength;
+
+    private final long ttlMillis;
+
+    private final Map<String, Entry> entryMap = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    private long totalLength = 0;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private static class Entry
+    {
+        public final String value;
+
+        public final long expiresAt;
+
+        public Entry(final String value, final long expiresAt)
+        {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * constructor.
+     *
+     * @param maxLength
+     *            the maximum total length of cached configurations, in characters.
+     * @param ttlMillis
+     *            the time to live of entries, in milliseconds.
+     */
+    public TransformationCache(final long maxLength, final long ttlMillis)
+    {
+        this.maxLength = maxLength;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns the current time. Overridden in tests.
+     *
+     * @return the current time in milliseconds.
+     */
+    protected long currentTimeMillis()
+    {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the cached configuration.
+     *
+     * @param key
+     *            the key created with {@link Source#getKey(EnvVars)}.
+     * @return the cached configuration. null if not cached or expired.
+     */
+    public String get(final String key)
+    {
+        Entry entry;
+        synchronized (entryMap)
+        {
+            entry = entryMap.get(key);
+            if(entry != null && entry.expiresAt <= currentTimeMillis())
+            {
+                remove(key);
+                entry = null;
+            }
+        }
+        if(entry == null)
+        {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * Caches a configuration.
+     *
+     * Configurations longer than the maximum total length are not cached.
+     *
+     * @param key
+     *            the key created with {@link Source#getKey(EnvVars)}.
+     * @param value
+     *            the transformed configuration.
+     */
+    public void put(final String key, final String value)
+    {
+        if(value.length() > maxLength)
+        {
+            return;
+        }
+        synchronized (entryMap)
+        {
+            remove(key);
+            final long now = currentTimeMillis();
+            entryMap.put(key, new Entry(value, now + ttlMillis));
+            totalLength += value.length();
+            // Discard expired entries and least recently used ones.
+            // The new entry is the most recently used and never discarded here.
+            final Iterator<Entry> it = entryMap.values().iterator();
+            while(it.hasNext())
+            {
+                final Entry entry = it.next();
+                if(totalLength > maxLength || entry.expiresAt <= now)
+                {
+                    it.remove();
+                    totalLength -= entry.value.length();
+                }
+            }
+        }
+    }
+
+    private void remove(final String key)
+    {
+        final Entry entry = entryMap.remove(key);
+        if(entry != null)
+        {
+            totalLength -= entry.value.length();
+        }
+    }
+
+    /**
+     * Discards all entries.
+     */
+    public void clear()
+    {
+        synchronized (entryMap)
+        {
+            entryMap.clear();
+            totalLength = 0;
+        }
+    }
+
+    /**
+     * Returns the number of cached configurations.
+     *
+     * @return the number of entries.
+     */
+    public int size()
+    {
+        synchronized (entryMap)
+        {
+            return entryMap.size();
+        }
+    }
+
+    /**
+     * Returns the total length of cached configurations.
+     *
+     * @return the total length in characters.
+     */
+    public long getTotalLength()
+    {
+        synchronized (entryMap)
+        {
+            return totalLength;
+        }
+    }
+
+    /**
+     * Returns how many times cached configurations are used.
+     *
+     * @return the number of cache hits.
+     */
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns how many times configurations are not found in the cache.
+     *
+     * @return the number of cache misses.
+     */
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the ratio of cache hits.
+     *
+     * @return the ratio of cache hits, from 0.0 to 1.0. 0.0 if never accessed.
+     */
+    public double getHitRate()
+    {
+        final long hit = getHitCount();
+        final long total = hit + getMissCount();
+        return (total > 0) ? ((double) hit / total) : 0.0;
+    }
+
+    /**
+     * A source configuration with operations, to create keys of the cache.
+     */
+    public static class Source
+    {
+        private final String digest;
+
+        private final SortedSet<String> variableNameSet;
+
+        /**
+         * constructor.
+         *
+         * @param xmlString
+         *            the source configuration.
+         * @param encoding
+         *            encoding of the configuration.
+         * @param operationsXml
+         *            the serialized operations.
+         */
+        public Source(final String xmlString, final String encoding, final String operationsXml)
+        {
+            digest = getDigestOf(xmlString, encoding, operationsXml);
+            variableNameSet = new TreeSet<String>();
+            final Matcher m = VARIABLE_PATTERN.matcher(operationsXml);
+            while(m.find())
+            {
+                variableNameSet.add((m.group(1) != null) ? m.group(1) : m.group(2));
+            }
+        }
+
+        /**
+         * Returns the key for the variables.
+         *
+         * @param env
+         *            variables used for the target.
+         * @return the key of the cache.
+         */
+        public String getKey(final EnvVars env)
+        {
+            final String[] values = new String[variableNameSet.size() * 2 + 1];
+            int i = 0;
+            values[i++] = digest;
+            for (final String name : variableNameSet)
+            {
+                values[i++] = name;
+                values[i++] = env.get(name);
+            }
+            return getDigestOf(values);
+        }
+    }
+
+    /**
+     * Returns the digest of strings.
+     *
+     * Each string is prefixed with its length so that boundaries are not ambiguous.
+     *
+     * @param values
+     *            strings. may contain null.
+     * @return the hex string of the SHA-256 digest.
+     */
+    static String getDigestOf(final String... values)
+    {
+        try
+        {
+            final MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (final String value : values)
+            {
+                if(value == null)
+                {
+                    md.update("-1:".getBytes("UTF-8"));
+                    continue;
+                }
+                md.update(String.format("%d:", value.length()).getBytes("UTF-8"));
+                md.update(value.getBytes("UTF-8"));
+            }
+            final StringBuilder sb = new StringBuilder();
+            for (final byte b : md.digest())
+            {
+                sb.append(String.format("%02x", b & 0xff));
+            }
+            return sb.toString();
+        } catch (final NoSuchAlgorithmException e)
+        {
+            // SHA-256 is always available.
+            throw new IllegalStateException(e);
+        } catch (final UnsupportedEncodingException e)
+        {
+            // UTF-8 is always available.
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * Caches compiled XPath expressions.
+ *
+ * As XPath and XPathExpression are not thread-safe,
+ * each thread has its own cache.
+ * Returned expressions must not be passed to other threads.
+ */
+class XPathExpressionCache
+{
+    /**
+     * The maximum number of expressions cached in each thread.
+     */
+    public static final int MAX_SIZE = 64;
+
+    private static final AtomicLong hitCount = new AtomicLong();
+
+    private static final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Holds XPathFactory, looked up only once when first used.
+     */
+    private static class XPathFactoryHolder
+    {
+        static final XPathFactory XPATH_FACTORY = XPathFactory.newInstance();
+    }
+
+    private static final ThreadLocal<XPathExpressionCache> CACHE = new ThreadLocal<XPathExpressionCache>()
+    {
+        @Override
+        protected XPathExpressionCache initialValue()
+        {
+            return new XPathExpressionCache();
+        }
+    };
+
+    private final XPath xpath;
+
+    private final Map<String, XPathExpression> expressionMap = new BoundedLruMap<String, XPathExpression>(MAX_SIZE);
+
+    private XPathExpressionCache()
+    {
+        synchronized (XPathFactoryHolder.XPATH_FACTORY)
+        {
+            xpath = XPathFactoryHolder.XPATH_FACTORY.newXPath();
+        }
+    }
+
+    /**
+     * Returns the compiled expression, compiling it only when not cached in the current thread.
+     *
+     * @param expression
+     *            XPath expression.
+     * @return compiled expression. Usable only in the current thread.
+     * @throws XPathExpressionException
+     *             the expression is invalid.
+     */
+    public static XPathExpression compile(final String expression) throws XPathExpressionException
+    {
+        return CACHE.get().get(expression);
+    }
+
+    private XPathExpression get(final String expression) throws XPathExpressionException
+    {
+        XPathExpression expr = expressionMap.get(expression);
+        if(expr != null)
+        {
+            hitCount.incrementAndGet();
+            return expr;
+        }
+        missCount.incrementAndGet();
+        expr = xpath.compile(expression);
+        expressionMap.put(expression, expr);
+        return expr;
+    }
+
+    /**
+     * Returns how many times compiled expressions are reused, in all threads.
+     *
+     * @return the number of cache hits.
+     */
+    public static long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns how many times expressions are compiled, in all threads.
+     *
+     * @return the number of cache misses.
+     */
+    public static long getMissCount()
+    {
+        return missCount.get();
+    }
+}
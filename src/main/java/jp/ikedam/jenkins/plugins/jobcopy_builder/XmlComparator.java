@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import java.io.PrintStream;
+
+import org.apache.commons.lang.StringUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+/**
+ * Tests whether two job configurations are equivalent.
+ *
+ * Configurations are equivalent if they are same as strings,
+ * or they are same as XML documents except for following points:
+ * <ul>
+ * <li>XML declarations</li>
+ * <li>Whitespaces between elements (e.g. indents)</li>
+ * </ul>
+ * Whitespaces in texts are significant.
+ */
+class XmlComparator
+{
+    private XmlComparator()
+    {
+    }
+
+    /**
+     * Tests whether two job configurations are equivalent.
+     *
+     * @param xmlString1
+     *            XML string of a configuration.
+     * @param xmlString2
+     *            XML string of another configuration.
+     * @param encoding
+     *            encoding of the XML.
+     * @param logger
+     *            The output stream to log.
+     * @return true if configurations are equivalent. false if they are not or fails to parse them.
+     */
+    public static boolean isEquivalent(final String xmlString1, final String xmlString2, final String encoding,
+            final PrintStream logger)
+    {
+        if(xmlString1 == null || xmlString2 == null)
+        {
+            return false;
+        }
+        if(xmlString1.equals(xmlString2))
+        {
+            return true;
+        }
+        Document doc1;
+        Document doc2;
+        try
+        {
+            doc1 = AbstractXmlJobcopyOperation.getXmlDocumentFromString(xmlString1, encoding, logger);
+            doc2 = AbstractXmlJobcopyOperation.getXmlDocumentFromString(xmlString2, encoding, logger);
+        } catch (final Exception e)
+        {
+            // can't tell they are equivalent.
+            return false;
+        }
+        removeWhitespacesBetweenElements(doc1);
+        removeWhitespacesBetweenElements(doc2);
+        return doc1.isEqualNode(doc2);
+    }
+
+    /**
+     * Removes whitespace-only texts from nodes containing elements.
+     *
+     * @param node
+     *            the node to remove whitespaces from recursively.
+     */
+    private static void removeWhitespacesBetweenElements(final Node node)
+    {
+        boolean hasElement = false;
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling())
+        {
+            if(child.getNodeType() == Node.ELEMENT_NODE)
+            {
+                hasElement = true;
+                removeWhitespacesBetweenElements(child);
+            }
+        }
+        if(!hasElement)
+        {
+            return;
+        }
+        Node child = node.getFirstChild();
+        while(child != null)
+        {
+            final Node next = child.getNextSibling();
+            if(child.getNodeType() == Node.TEXT_NODE && StringUtils.isBlank(child.getNodeValue()))
+            {
+                node.removeChild(child);
+            }
+            child = next;
+        }
+    }
+}
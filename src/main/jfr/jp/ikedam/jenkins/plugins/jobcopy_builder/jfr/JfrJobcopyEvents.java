@@ -0,0 +1,234 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jp.ikedam.jenkins.plugins.jobcopy_builder.JobcopyEvents;
+import jp.ikedam.jenkins.plugins.jobcopy_builder.JobcopyOperation;
+
+/**
+ * Emits events of copying jobs to Java Flight Recorder.
+ *
+ * Built only on JDK 11 or later with the profile <code>jfr</code>,
+ * and loaded by {@link JobcopyEvents#getInstance()} via reflection.
+ * Events are committed only when enabled in the running recording.
+ */
+public class JfrJobcopyEvents extends JobcopyEvents
+{
+    /**
+     * The operation event being performed in the current thread.
+     */
+    private final ThreadLocal<OperationEventImpl> currentOperationEvent = new ThreadLocal<OperationEventImpl>();
+
+    @Name("jp.ikedam.jenkins.plugins.jobcopy_builder.Copy")
+    @Label("Jobcopy Copy")
+    @Description("Copying a job with Jobcopy Builder")
+    @Category({ "Jenkins", "Jobcopy" })
+    static class CopyJfrEvent extends Event
+    {
+        @Label("From Job")
+        String fromJobName;
+
+        @Label("To Job")
+        String toJobName;
+
+        @Label("Configuration Size")
+        @DataAmount
+        long bytes;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    @Name("jp.ikedam.jenkins.plugins.jobcopy_builder.Operation")
+    @Label("Jobcopy Operation")
+    @Description("Performing an operation to a configuration with Jobcopy Builder")
+    @Category({ "Jenkins", "Jobcopy" })
+    static class OperationJfrEvent extends Event
+    {
+        @Label("Operation Class")
+        String operationClass;
+
+        @Label("Matches")
+        long matches;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    @Name("jp.ikedam.jenkins.plugins.jobcopy_builder.AdditionalFile")
+    @Label("Jobcopy Additional File")
+    @Description("Copying an additional file with Jobcopy Builder")
+    @Category({ "Jenkins", "Jobcopy" })
+    static class AdditionalFileJfrEvent extends Event
+    {
+        @Label("Path")
+        String path;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+
+        @Label("Result")
+        String result;
+    }
+
+    private static class CopyEventImpl extends CopyEvent
+    {
+        private final CopyJfrEvent event = new CopyJfrEvent();
+
+        @Override
+        public void begin()
+        {
+            event.begin();
+        }
+
+        @Override
+        public void setBytes(final long bytes)
+        {
+            event.bytes = bytes;
+        }
+
+        @Override
+        public void commit(final String fromJobName, final String toJobName, final boolean succeeded)
+        {
+            event.end();
+            if(event.shouldCommit())
+            {
+                event.fromJobName = fromJobName;
+                event.toJobName = toJobName;
+                event.succeeded = succeeded;
+                event.commit();
+            }
+        }
+    }
+
+    private class OperationEventImpl extends OperationEvent
+    {
+        private final OperationJfrEvent event = new OperationJfrEvent();
+
+        /**
+         * Whether this event is created inside another operation event, and ignored.
+         */
+        private boolean nested = false;
+
+        @Override
+        public void begin()
+        {
+            if(currentOperationEvent.get() != null)
+            {
+                nested = true;
+                return;
+            }
+            currentOperationEvent.set(this);
+            event.begin();
+        }
+
+        @Override
+        public void addMatches(final long count)
+        {
+            event.matches += count;
+        }
+
+        @Override
+        public void commit(final JobcopyOperation operation, final boolean succeeded)
+        {
+            if(nested)
+            {
+                return;
+            }
+            currentOperationEvent.remove();
+            event.end();
+            if(event.shouldCommit())
+            {
+                event.operationClass = operation.getClass().getName();
+                event.succeeded = succeeded;
+                event.commit();
+            }
+        }
+    }
+
+    private static class AdditionalFileEventImpl extends AdditionalFileEvent
+    {
+        private final AdditionalFileJfrEvent event = new AdditionalFileJfrEvent();
+
+        @Override
+        public void begin()
+        {
+            event.begin();
+        }
+
+        @Override
+        public void commit(final String path, final long bytes, final String result)
+        {
+            event.end();
+            if(event.shouldCommit())
+            {
+                event.path = path;
+                event.bytes = bytes;
+                event.result = result;
+                event.commit();
+            }
+        }
+    }
+
+    @Override
+    public boolean isAvailable()
+    {
+        return true;
+    }
+
+    @Override
+    public CopyEvent newCopyEvent()
+    {
+        return new CopyEventImpl();
+    }
+
+    @Override
+    public OperationEvent newOperationEvent()
+    {
+        return new OperationEventImpl();
+    }
+
+    @Override
+    public AdditionalFileEvent newAdditionalFileEvent()
+    {
+        return new AdditionalFileEventImpl();
+    }
+
+    @Override
+    public void addMatches(final long count)
+    {
+        final OperationEventImpl event = currentOperationEvent.get();
+        if(event != null)
+        {
+            event.addMatches(count);
+        }
+    }
+}
@@ -29,6 +29,9 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -69,6 +72,37 @@ public class AbstractXmlJobcopyOperationSimpleTest extends TestCase
         }
     }
     
+    private static class TextReplacingOperation extends AbstractXmlJobcopyOperation
+    {
+        private String fromStr;
+        private String toStr;
+        
+        public TextReplacingOperation(String fromStr, String toStr)
+        {
+            this.fromStr = fromStr;
+            this.toStr = toStr;
+        }
+        
+        @Override
+        public Document perform(Document doc, EnvVars env, PrintStream logger)
+        {
+            try
+            {
+                NodeList nodeList = getNodeList(doc, "//text()");
+                for(int i = 0; i < nodeList.getLength(); ++i)
+                {
+                    Node node = nodeList.item(i);
+                    node.setNodeValue(node.getNodeValue().replace(fromStr, toStr));
+                }
+                return doc;
+            }
+            catch(XPathExpressionException e)
+            {
+                return null;
+            }
+        }
+    }
+    
     private XmlJobcopyOperationImpl target;
     private DocumentBuilder builder;
     private DOMImplementation domImpl;
@@ -136,6 +170,65 @@ public class AbstractXmlJobcopyOperationSimpleTest extends TestCase
         // There's no way to trigger this!!! 
     }
     
+    public void testPerformAfterFailure() throws Exception
+    {
+        EnvVars env = new EnvVars();
+        PrintStream logger = new PrintStream(new ByteArrayOutputStream());
+        TextReplacingOperation op = new TextReplacingOperation("value", "replaced");
+        
+        // The parser used for a failed parse must be usable again.
+        for(int i = 0; i < 3; ++i)
+        {
+            assertNull("Invalid XML", op.perform("hogehoge", "UTF-8", env, logger));
+            String result = op.perform("<?xml version=\"1.0\" ?><doc>value</doc>", "UTF-8", env, logger);
+            assertNotNull("Valid XML", result);
+            Document doc = builder.parse(new ByteArrayInputStream(result.getBytes("UTF-8")));
+            assertEquals("Valid XML", "replaced", doc.getDocumentElement().getTextContent());
+        }
+    }
+    
+    public void testPerformConcurrently() throws Exception
+    {
+        final TextReplacingOperation op = new TextReplacingOperation("value", "replaced");
+        final List<String> results = Collections.synchronizedList(new ArrayList<String>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for(int i = 0; i < 8; ++i)
+        {
+            final int id = i;
+            threads.add(new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    EnvVars env = new EnvVars();
+                    PrintStream logger = new PrintStream(new ByteArrayOutputStream());
+                    for(int j = 0; j < 50; ++j)
+                    {
+                        results.add(op.perform(
+                                String.format("<?xml version=\"1.0\" ?><doc><node>value%d-%d</node></doc>", id, j),
+                                "UTF-8", env, logger
+                        ));
+                    }
+                }
+            });
+        }
+        for(Thread t: threads)
+        {
+            t.start();
+        }
+        for(Thread t: threads)
+        {
+            t.join();
+        }
+        
+        assertEquals(8 * 50, results.size());
+        for(String result: results)
+        {
+            assertNotNull(result);
+            assertTrue(result, result.contains("<node>replaced"));
+        }
+    }
+    
     public void testGetNode() throws SAXException, IOException, XPathExpressionException
     {
         String xml = "<?xml version=\"1.0\"?>" +
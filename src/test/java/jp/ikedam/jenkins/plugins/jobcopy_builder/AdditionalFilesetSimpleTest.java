@@ -23,6 +23,7 @@
  */
 package jp.ikedam.jenkins.plugins.jobcopy_builder;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -123,6 +124,12 @@ public class AdditionalFilesetSimpleTest extends TestCase
         {
             return performToFile(dstFile, srcFile, env, logger);
         }
+
+        public FileResult publicProcessFile(final File dstFile, final File srcFile, final EnvVars env,
+                final PrintStream logger)
+        {
+            return processFile(dstFile, srcFile, env, JobcopyLogLevel.SUMMARY, logger);
+        }
     }
 
     // mainly test that unexpected exception not thrown...
@@ -302,6 +309,184 @@ public class AdditionalFilesetSimpleTest extends TestCase
         }
     }
 
+    public void testPerformParallel() throws IOException
+    {
+        File workDir = null;
+        try
+        {
+            workDir = createTempDir();
+            final File srcDir = new File(workDir, "job1");
+            final File dstDir = new File(workDir, "job2");
+            final DummyJob srcJob = new DummyJob(srcDir);
+            final DummyJob dstJob = new DummyJob(dstDir);
+
+            final List<String> filenameList = new ArrayList<String>();
+            for (int i = 0; i < 10; ++i)
+            {
+                final String filename = String.format("promotions/process%d/config.xml", i);
+                filenameList.add(filename);
+                // process5 does not exist and fails.
+                if(i != 5)
+                {
+                    FileUtils.writeStringToFile(new File(srcDir, filename), String.format("value %d", i));
+                }
+            }
+
+            final AdditionalFileset target = new AdditionalFileset(
+                    "promotions/*/config.xml",
+                    null,
+                    false,
+                    Arrays.asList((JobcopyOperation) new ReplaceOperation("value", false, "replaced", false)))
+            {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected List<String> getFilesToCopy(final File dir)
+                {
+                    return filenameList;
+                }
+            };
+            target.setParallelism(4);
+            assertEquals(4, target.getParallelism());
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final PrintStream logger = new PrintStream(out, true);
+            assertFalse(target.perform(dstJob, srcJob, new EnvVars(), JobcopyLogLevel.SUMMARY, logger));
+
+            for (int i = 0; i < 10; ++i)
+            {
+                final File dstFile = new File(dstDir, filenameList.get(i));
+                if(i != 5)
+                {
+                    assertEquals(String.format("replaced %d", i), FileUtils.readFileToString(dstFile));
+                } else
+                {
+                    assertFalse(dstFile.exists());
+                }
+            }
+
+            // logs are written in the order of files.
+            final String log = out.toString();
+            int pos = -1;
+            for (final String filename : filenameList)
+            {
+                final int next = log.indexOf(String.format("Copy %s", filename));
+                assertTrue(log, next > pos);
+                pos = next;
+            }
+            assertTrue(log, log.indexOf("Failed to read from") > log.indexOf("Copy promotions/process5/config.xml"));
+            assertTrue(log, log.indexOf("Failed to read from") < log.indexOf("Copy promotions/process6/config.xml"));
+        } finally
+        {
+            if(workDir != null)
+            {
+                FileUtils.deleteDirectory(workDir);
+            }
+        }
+    }
+
+    public void testPerformFiles() throws IOException
+    {
+        File workDir = null;
+        try
+        {
+            workDir = createTempDir();
+            final File srcDir = new File(workDir, "job1");
+            final File dstDir = new File(workDir, "job2");
+            final DummyJob srcJob = new DummyJob(srcDir);
+            final DummyJob dstJob = new DummyJob(dstDir);
+            final EnvVars env = new EnvVars();
+            final PrintStream logger = new PrintStream(new NullStream());
+
+            FileUtils.writeStringToFile(new File(srcDir, "new.xml"), "new");
+            FileUtils.writeStringToFile(new File(srcDir, "existing.xml"), "existing");
+            FileUtils.writeStringToFile(new File(dstDir, "existing.xml"), "existing");
+
+            final AdditionalFileset target = new AdditionalFileset("*.xml", null, false, null)
+            {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected List<String> getFilesToCopy(final File dir)
+                {
+                    return Arrays.asList("new.xml", "existing.xml", "not_exist.xml");
+                }
+            };
+            assertEquals(
+                    Arrays.asList(
+                            AdditionalFileset.FileResult.WRITTEN,
+                            AdditionalFileset.FileResult.SKIPPED,
+                            AdditionalFileset.FileResult.FAILED),
+                    target.performFiles(dstJob, srcJob, env, JobcopyLogLevel.SUMMARY, logger));
+
+            assertNull(new AdditionalFileset(null, null, false, null)
+                    .performFiles(dstJob, srcJob, env, JobcopyLogLevel.SUMMARY, logger));
+        } finally
+        {
+            if(workDir != null)
+            {
+                FileUtils.deleteDirectory(workDir);
+            }
+        }
+    }
+
+    public void testPlanFiles() throws IOException
+    {
+        File workDir = null;
+        try
+        {
+            workDir = createTempDir();
+            final File srcDir = new File(workDir, "job1");
+            final File dstDir = new File(workDir, "job2");
+            final DummyJob srcJob = new DummyJob(srcDir);
+            final EnvVars env = new EnvVars();
+            final PrintStream logger = new PrintStream(new NullStream());
+
+            FileUtils.writeStringToFile(new File(srcDir, "new.xml"), "new");
+            FileUtils.writeStringToFile(new File(srcDir, "same.xml"), "same");
+            FileUtils.writeStringToFile(new File(dstDir, "same.xml"), "same");
+            FileUtils.writeStringToFile(new File(srcDir, "changed.xml"), "changed");
+            FileUtils.writeStringToFile(new File(dstDir, "changed.xml"), "original");
+
+            final AdditionalFileset target = new AdditionalFileset("*.xml", null, true, null)
+            {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected List<String> getFilesToCopy(final File dir)
+                {
+                    return Arrays.asList("new.xml", "same.xml", "changed.xml");
+                }
+            };
+            target.setIncremental(true);
+            assertEquals(
+                    Arrays.asList(
+                            AdditionalFileset.FileResult.WRITTEN,
+                            AdditionalFileset.FileResult.UNCHANGED,
+                            AdditionalFileset.FileResult.WRITTEN),
+                    target.planFiles(dstDir, "job2", srcJob, env, JobcopyLogLevel.SUMMARY, logger));
+
+            // nothing is written.
+            assertFalse(new File(dstDir, "new.xml").exists());
+            assertEquals("original", FileUtils.readFileToString(new File(dstDir, "changed.xml")));
+
+            // the destination need not exist.
+            assertEquals(
+                    Arrays.asList(
+                            AdditionalFileset.FileResult.WRITTEN,
+                            AdditionalFileset.FileResult.WRITTEN,
+                            AdditionalFileset.FileResult.WRITTEN),
+                    target.planFiles(new File(workDir, "job3"), "job3", srcJob, env, JobcopyLogLevel.SUMMARY, logger));
+            assertFalse(new File(workDir, "job3").exists());
+        } finally
+        {
+            if(workDir != null)
+            {
+                FileUtils.deleteDirectory(workDir);
+            }
+        }
+    }
+
     public void testPerformError()
     {
         final File srcDir = new File("/path/to/job1");
@@ -490,6 +675,24 @@ public class AdditionalFilesetSimpleTest extends TestCase
                 assertTrue("empty operation list", target.publicPerformToFile(dstFile, srcFile, env, logger));
                 assertEquals("empty operation list", dummySrc, FileUtils.readFileToString(dstFile));
             }
+
+            // bytes are copied as they are without operations
+            {
+                final PublicAdditionalFileset target = new PublicAdditionalFileset(null, null, false, null);
+
+                final File srcFile = new File(workDir, "binary_src.xml");
+                final File dstFile = new File(workDir, "subdir/binary_dst.xml");
+                final EnvVars env = new EnvVars();
+                final PrintStream logger = new PrintStream(new NullStream());
+
+                // BOM, CRLF and bytes invalid as UTF-8
+                final byte[] contents = new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF, 'a', '\r', '\n',
+                        (byte) 0xFF, (byte) 0xC0, 'b' };
+                FileUtils.writeByteArrayToFile(srcFile, contents);
+
+                assertTrue("bytes as they are", target.publicPerformToFile(dstFile, srcFile, env, logger));
+                assertTrue("bytes as they are", Arrays.equals(contents, FileUtils.readFileToByteArray(dstFile)));
+            }
         }
         finally
         {
@@ -500,6 +703,96 @@ public class AdditionalFilesetSimpleTest extends TestCase
         }
     }
 
+    public void testProcessFileIncremental() throws IOException
+    {
+        File workDir = null;
+        final String dummySrc = "This is a dummy source contents.";
+        final String dummyConv = "This is a dummy converted contents.";
+        final long oldTimestamp = 1000000000000L;
+        try
+        {
+            workDir = createTempDir();
+            final EnvVars env = new EnvVars();
+            final PrintStream logger = new PrintStream(new NullStream());
+
+            // with operations
+            {
+                final PublicAdditionalFileset target = new PublicAdditionalFileset(
+                        null,
+                        null,
+                        true,
+                        Arrays.asList((JobcopyOperation) new DummyOperation(dummyConv)));
+                target.setIncremental(true);
+
+                final File srcFile = new File(workDir, "operation_src.xml");
+                final File dstFile = new File(workDir, "operation_dst.xml");
+                FileUtils.writeStringToFile(srcFile, dummySrc);
+
+                assertEquals("first", AdditionalFileset.FileResult.WRITTEN,
+                        target.publicProcessFile(dstFile, srcFile, env, logger));
+                assertEquals("first", dummyConv, FileUtils.readFileToString(dstFile));
+
+                dstFile.setLastModified(oldTimestamp);
+                assertEquals("same", AdditionalFileset.FileResult.UNCHANGED,
+                        target.publicProcessFile(dstFile, srcFile, env, logger));
+                assertEquals("same", oldTimestamp, dstFile.lastModified());
+
+                FileUtils.writeStringToFile(dstFile, "This is a dummy converted Contents.");
+                dstFile.setLastModified(oldTimestamp);
+                assertEquals("same size", AdditionalFileset.FileResult.WRITTEN,
+                        target.publicProcessFile(dstFile, srcFile, env, logger));
+                assertEquals("same size", dummyConv, FileUtils.readFileToString(dstFile));
+
+                target.setIncremental(false);
+                dstFile.setLastModified(oldTimestamp);
+                assertEquals("not incremental", AdditionalFileset.FileResult.WRITTEN,
+                        target.publicProcessFile(dstFile, srcFile, env, logger));
+                assertFalse("not incremental", oldTimestamp == dstFile.lastModified());
+            }
+
+            // without operations
+            {
+                final PublicAdditionalFileset target = new PublicAdditionalFileset(null, null, true, null);
+                target.setIncremental(true);
+
+                final File srcFile = new File(workDir, "as_is_src.xml");
+                final File dstFile = new File(workDir, "as_is_dst.xml");
+                FileUtils.writeStringToFile(srcFile, dummySrc);
+
+                assertEquals("first", AdditionalFileset.FileResult.WRITTEN,
+                        target.publicProcessFile(dstFile, srcFile, env, logger));
+
+                dstFile.setLastModified(oldTimestamp);
+                assertEquals("same", AdditionalFileset.FileResult.UNCHANGED,
+                        target.publicProcessFile(dstFile, srcFile, env, logger));
+                assertEquals("same", oldTimestamp, dstFile.lastModified());
+
+                FileUtils.writeStringToFile(srcFile, dummyConv);
+                assertEquals("changed", AdditionalFileset.FileResult.WRITTEN,
+                        target.publicProcessFile(dstFile, srcFile, env, logger));
+                assertEquals("changed", dummyConv, FileUtils.readFileToString(dstFile));
+            }
+
+            // not overwrite
+            {
+                final PublicAdditionalFileset target = new PublicAdditionalFileset(null, null, false, null);
+                target.setIncremental(true);
+
+                final File srcFile = new File(workDir, "as_is_src.xml");
+                final File dstFile = new File(workDir, "as_is_dst.xml");
+
+                assertEquals("not overwrite", AdditionalFileset.FileResult.SKIPPED,
+                        target.publicProcessFile(dstFile, srcFile, env, logger));
+            }
+        } finally
+        {
+            if(workDir != null)
+            {
+                FileUtils.deleteDirectory(workDir);
+            }
+        }
+    }
+
     public void testPerformFileError() throws IOException
     {
         File workDir = null;
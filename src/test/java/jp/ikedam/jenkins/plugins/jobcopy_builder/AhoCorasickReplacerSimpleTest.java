@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for AhoCorasickReplacer not corresponded to Jenkins.
+ */
+public class AhoCorasickReplacerSimpleTest
+{
+    private String replace(final String text, final String... fromTo)
+    {
+        final String[] fromStrs = new String[fromTo.length / 2];
+        final String[] toStrs = new String[fromTo.length / 2];
+        for (int i = 0; i < fromStrs.length; ++i)
+        {
+            fromStrs[i] = fromTo[i * 2];
+            toStrs[i] = fromTo[i * 2 + 1];
+        }
+        return new AhoCorasickReplacer(Arrays.asList(fromStrs), Arrays.asList(toStrs)).replace(text);
+    }
+
+    @Test
+    public void testReplace()
+    {
+        assertEquals("Simple replace", "some replaced value", replace("some target value", "target", "replaced"));
+        assertEquals(
+                "Multiple strings",
+                "1 2 3 1",
+                replace("one two three one", "one", "1", "two", "2", "three", "3"));
+        assertEquals("At the start and the end", "XbX", replace("aba", "a", "X"));
+        assertEquals("Whole text", "X", replace("abc", "abc", "X"));
+        assertEquals("To empty", "ac", replace("abc", "b", ""));
+    }
+
+    @Test
+    public void testReplaceNotMatch()
+    {
+        final String text = "some value";
+        assertSame("Not match", text, replace(text, "target", "replaced"));
+        assertEquals("Empty text", "", replace("", "target", "replaced"));
+    }
+
+    @Test
+    public void testReplaceLeftmostLongest()
+    {
+        // leftmost
+        assertEquals("Leftmost", "Xc", replace("abc", "bc", "Y", "ab", "X"));
+        // longest
+        assertEquals("Longest", "Y", replace("abc", "a", "X", "abc", "Y"));
+        assertEquals("Longest", "Xbd", replace("abbd", "ab", "X", "abc", "Y"));
+        // leftmost wins over longest
+        assertEquals("Leftmost over longest", "Xcdef", replace("abcdef", "ab", "X", "bcdef", "Y"));
+        // first one for the same strings
+        assertEquals("Duplicated", "X", replace("a", "a", "X", "a", "Y"));
+        // suffixes
+        assertEquals("Suffix", "aZ", replace("ahers", "he", "X", "hers", "Z", "s", "S"));
+    }
+
+    @Test
+    public void testReplaceNotReplacedAgain()
+    {
+        assertEquals("Swap", "ba", replace("ab", "a", "b", "b", "a"));
+        assertEquals("Not overlap", "XX", replace("aaaa", "aa", "X"));
+        assertEquals("Not overlap", "Xa", replace("aaa", "aa", "X"));
+    }
+
+    @Test
+    public void testReplaceCount()
+    {
+        final AhoCorasickReplacer replacer = new AhoCorasickReplacer(
+                Arrays.asList("one", "two", "three"),
+                Arrays.asList("1", "2", "3"));
+        final int[] countList = new int[3];
+        assertEquals("1 2 1 1", replacer.replace("one two one one", countList));
+        assertEquals("3", replacer.replace("three", countList));
+        assertArrayEquals(new int[] { 3, 1, 1 }, countList);
+    }
+
+    @Test
+    public void testInvalid()
+    {
+        try
+        {
+            replace("abc", "", "X");
+            fail("Empty from string");
+        } catch (final IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            new AhoCorasickReplacer(Arrays.asList("a", "b"), Arrays.asList("X"));
+            fail("Size mismatch");
+        } catch (final IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+}
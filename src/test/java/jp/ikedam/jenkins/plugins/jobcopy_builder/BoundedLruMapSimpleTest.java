@@ -0,0 +1,67 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for BoundedLruMap not corresponded to Jenkins.
+ */
+public class BoundedLruMapSimpleTest
+{
+    @Test
+    public void testEviction()
+    {
+        final Map<String, String> target = new BoundedLruMap<String, String>(2);
+        target.put("key1", "value1");
+        target.put("key2", "value2");
+        target.put("key3", "value3");
+
+        assertEquals(2, target.size());
+        assertFalse(target.containsKey("key1"));
+        assertTrue(target.containsKey("key2"));
+        assertTrue(target.containsKey("key3"));
+    }
+
+    @Test
+    public void testEvictionLeastRecentlyAccessed()
+    {
+        final Map<String, String> target = new BoundedLruMap<String, String>(2);
+        target.put("key1", "value1");
+        target.put("key2", "value2");
+        assertEquals("value1", target.get("key1"));
+        target.put("key3", "value3");
+
+        assertEquals(2, target.size());
+        assertTrue(target.containsKey("key1"));
+        assertFalse(target.containsKey("key2"));
+        assertTrue(target.containsKey("key3"));
+    }
+}
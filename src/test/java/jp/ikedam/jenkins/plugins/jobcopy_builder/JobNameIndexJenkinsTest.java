@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Items;
+
+/**
+ * Tests for JobNameIndex concerned with Jenkins
+ */
+public class JobNameIndexJenkinsTest
+{
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testUpdated() throws Exception
+    {
+        assertTrue(JobNameIndex.isReady());
+
+        // created
+        final FreeStyleProject job1 = j.createFreeStyleProject("job1");
+        final Folder folder1 = j.getInstance().createProject(Folder.class, "folder1");
+        folder1.createProject(FreeStyleProject.class, "job2");
+        assertEquals(
+                Arrays.asList("folder1", "folder1/job2", "job1"),
+                new ArrayList<String>(JobNameIndex.getNames()));
+
+        // renamed
+        job1.renameTo("job3");
+        assertFalse(JobNameIndex.contains("job1"));
+        assertTrue(JobNameIndex.contains("job3"));
+
+        // moved
+        Items.move(job1, folder1);
+        assertFalse(JobNameIndex.contains("job3"));
+        assertTrue(JobNameIndex.contains("folder1/job3"));
+
+        // deleted with descendants
+        folder1.delete();
+        assertTrue(JobNameIndex.getNames().isEmpty());
+    }
+
+    @Test
+    public void testGetItems() throws Exception
+    {
+        j.createFreeStyleProject("job1");
+        final Folder folder1 = j.getInstance().createProject(Folder.class, "folder1");
+        final FreeStyleProject job2 = folder1.createProject(FreeStyleProject.class, "job2");
+
+        assertEquals(Arrays.asList(folder1, job2), JobNameIndex.getItems("folder1"));
+        assertEquals(Arrays.asList(job2), JobNameIndex.getItems("folder1/"));
+        assertEquals(3, JobNameIndex.getItems(null).size());
+        assertEquals(Arrays.asList(folder1), JobNameIndex.getItems(null, 1));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for JobNameIndex not corresponded to Jenkins.
+ */
+public class JobNameIndexSimpleTest
+{
+    @Test
+    public void testIndex()
+    {
+        JobNameIndex.rebuild(Arrays.asList("job2", "folder1", "folder1/job1", "folder1/folder2/job1", "job1"));
+        assertTrue(JobNameIndex.isReady());
+        assertEquals(
+                Arrays.asList("folder1", "folder1/folder2/job1", "folder1/job1", "job1", "job2"),
+                new ArrayList<String>(JobNameIndex.getNames()));
+        assertEquals(
+                Arrays.asList("folder1/folder2/job1", "folder1/job1"),
+                new ArrayList<String>(JobNameIndex.getNamesStartingWith("folder1/")));
+        assertEquals(
+                Arrays.asList("job1", "job2"),
+                new ArrayList<String>(JobNameIndex.getNamesStartingWith("job")));
+        assertTrue(JobNameIndex.getNamesStartingWith("nothing").isEmpty());
+        assertTrue(JobNameIndex.contains("folder1/job1"));
+        assertFalse(JobNameIndex.contains("folder1/job2"));
+
+        JobNameIndex.add("folder1/job2");
+        assertTrue(JobNameIndex.contains("folder1/job2"));
+
+        // descendants are also moved.
+        JobNameIndex.move("folder1", "folder3");
+        assertEquals(
+                Arrays.asList("folder3", "folder3/folder2/job1", "folder3/job1", "folder3/job2", "job1", "job2"),
+                new ArrayList<String>(JobNameIndex.getNames()));
+
+        // descendants are also removed.
+        JobNameIndex.remove("folder3");
+        assertEquals(
+                Arrays.asList("job1", "job2"),
+                new ArrayList<String>(JobNameIndex.getNames()));
+
+        // rebuilding discards old names.
+        JobNameIndex.rebuild(Arrays.asList("job3"));
+        assertEquals(
+                Arrays.asList("job3"),
+                new ArrayList<String>(JobNameIndex.getNames()));
+    }
+
+    @Test
+    public void testResolve()
+    {
+        assertEquals("job1", JobNameIndex.resolve("", "job1"));
+        assertEquals("folder1/job1", JobNameIndex.resolve("folder1", "job1"));
+        assertEquals("folder1/folder2/job1", JobNameIndex.resolve("folder1", "folder2/job1"));
+        assertEquals("job1", JobNameIndex.resolve("folder1", "../job1"));
+        assertEquals("folder1/job1", JobNameIndex.resolve("folder1", "./job1"));
+        assertEquals("job1", JobNameIndex.resolve("folder1", "/job1"));
+        assertEquals("folder2/job1", JobNameIndex.resolve("folder1", "/folder2/job1"));
+        assertEquals("", JobNameIndex.resolve("folder1", ".."));
+        assertNull(JobNameIndex.resolve("folder1", "../../job1"));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Tests for JobNameValidationCache not corresponded to Jenkins.
+ */
+public class JobNameValidationCacheSimpleTest
+{
+    private static class TestJobNameValidationCache extends JobNameValidationCache
+    {
+        public long now = 0;
+
+        public TestJobNameValidationCache(final int maxSize, final long ttlMillis)
+        {
+            super(maxSize, ttlMillis);
+        }
+
+        @Override
+        protected long currentTimeMillis()
+        {
+            return now;
+        }
+    }
+
+    @Test
+    public void testGetAndPut()
+    {
+        final JobNameValidationCache cache = new TestJobNameValidationCache(10, 1000);
+        assertNull(cache.get("user1", "folder/job"));
+
+        cache.put(cache.getGeneration(), "user1", "folder/job", JobNameValidationCache.Kind.ABSTRACT_ITEM);
+        cache.put(cache.getGeneration(), "user2", "folder/job", JobNameValidationCache.Kind.NOT_FOUND);
+        assertEquals(JobNameValidationCache.Kind.ABSTRACT_ITEM, cache.get("user1", "folder/job"));
+        assertEquals(JobNameValidationCache.Kind.NOT_FOUND, cache.get("user2", "folder/job"));
+        assertNull(cache.get("user1", "folder"));
+    }
+
+    @Test
+    public void testExpire()
+    {
+        final TestJobNameValidationCache cache = new TestJobNameValidationCache(10, 1000);
+        cache.put(cache.getGeneration(), "user1", "job", JobNameValidationCache.Kind.OTHER);
+
+        cache.now = 999;
+        assertEquals(JobNameValidationCache.Kind.OTHER, cache.get("user1", "job"));
+
+        cache.now = 1000;
+        assertNull(cache.get("user1", "job"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testMaxSize()
+    {
+        final JobNameValidationCache cache = new TestJobNameValidationCache(2, 1000);
+        cache.put(cache.getGeneration(), "user1", "job1", JobNameValidationCache.Kind.ABSTRACT_ITEM);
+        cache.put(cache.getGeneration(), "user1", "job2", JobNameValidationCache.Kind.ABSTRACT_ITEM);
+        cache.get("user1", "job1");
+        cache.put(cache.getGeneration(), "user1", "job3", JobNameValidationCache.Kind.ABSTRACT_ITEM);
+
+        assertEquals(2, cache.size());
+        assertEquals(JobNameValidationCache.Kind.ABSTRACT_ITEM, cache.get("user1", "job1"));
+        assertNull(cache.get("user1", "job2"));
+    }
+
+    @Test
+    public void testInvalidate()
+    {
+        final JobNameValidationCache cache = new TestJobNameValidationCache(10, 1000);
+        cache.put(cache.getGeneration(), "user1", "job", JobNameValidationCache.Kind.NOT_FOUND);
+
+        // looked up before the invalidation
+        final long generation = cache.getGeneration();
+        cache.invalidate();
+        assertNull(cache.get("user1", "job"));
+
+        // outdated results are not cached.
+        cache.put(generation, "user1", "job", JobNameValidationCache.Kind.NOT_FOUND);
+        assertNull(cache.get("user1", "job"));
+
+        cache.put(cache.getGeneration(), "user1", "job", JobNameValidationCache.Kind.ABSTRACT_ITEM);
+        assertEquals(JobNameValidationCache.Kind.ABSTRACT_ITEM, cache.get("user1", "job"));
+    }
+}
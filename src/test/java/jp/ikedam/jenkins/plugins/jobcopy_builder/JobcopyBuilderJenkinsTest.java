@@ -29,6 +29,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.Serializable;
@@ -38,6 +39,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.jvnet.hudson.test.JenkinsRule;
@@ -65,6 +67,7 @@ import hudson.plugins.promoted_builds.JobPropertyImpl;
 import hudson.plugins.promoted_builds.PromotionProcess;
 import hudson.plugins.promoted_builds.conditions.DownstreamPassCondition;
 import hudson.plugins.promoted_builds.conditions.ManualCondition;
+import hudson.tasks.BuildTrigger;
 import hudson.util.ComboBoxModel;
 import hudson.util.FormValidation;
 import jenkins.model.Jenkins;
@@ -167,6 +170,66 @@ public class JobcopyBuilderJenkinsTest
                 descriptor.doFillFromJobNameItems(job3));
     }
 
+    @Test
+    public void testDescriptorDoAutoCompleteFromJobName()
+            throws IOException
+    {
+        final JobcopyBuilder.DescriptorImpl descriptor = getDescriptor();
+
+        // job1
+        // folder1/job2
+        // folder1/folder2/job3
+        final FreeStyleProject job1 = j.createFreeStyleProject("job1");
+        final Folder folder1 = j.getInstance().createProject(
+                Folder.class,
+                "folder1");
+        final FreeStyleProject job2 = folder1
+                .createProject(FreeStyleProject.class, "job2");
+        final Folder folder2 = folder1.createProject(Folder.class, "folder2");
+        folder2.createProject(FreeStyleProject.class, "job3");
+
+        assertEquals(
+                Arrays.asList(
+                        "folder1",
+                        "folder1/folder2",
+                        "folder1/folder2/job3",
+                        "folder1/job2"),
+                descriptor.doAutoCompleteFromJobName(job1, "fo").getValues());
+        assertEquals(
+                Arrays.asList("job1"),
+                descriptor.doAutoCompleteFromJobName(null, "job").getValues());
+        assertEquals(
+                Arrays.asList("folder2", "folder2/job3"),
+                descriptor.doAutoCompleteFromJobName(job2, "f").getValues());
+        assertEquals(
+                Arrays.asList("../job1"),
+                descriptor.doAutoCompleteFromJobName(job2, "../j").getValues());
+        assertEquals(
+                Arrays.asList("/folder1/job2"),
+                descriptor.doAutoCompleteFromJobName(job2, "/folder1/j").getValues());
+        assertEquals(
+                Arrays.asList("./folder2/job3"),
+                descriptor.doAutoCompleteFromJobName(job2, "./folder2/").getValues());
+        assertEquals(
+                Collections.emptyList(),
+                descriptor.doAutoCompleteFromJobName(job2, "../../j").getValues());
+    }
+
+    @Test
+    public void testDescriptorDoAutoCompleteFromJobNameLimited()
+            throws IOException
+    {
+        final JobcopyBuilder.DescriptorImpl descriptor = getDescriptor();
+        for (int i = 0; i <= JobcopyBuilder.DescriptorImpl.MAX_AUTO_COMPLETION_CANDIDATES; ++i)
+        {
+            j.createFreeStyleProject(String.format("job%03d", i));
+        }
+
+        final List<String> candidates = descriptor.doAutoCompleteFromJobName(null, "job").getValues();
+        assertEquals(JobcopyBuilder.DescriptorImpl.MAX_AUTO_COMPLETION_CANDIDATES, candidates.size());
+        assertEquals("job000", candidates.get(0));
+    }
+
     @Test
     public void testDescriptorDoCheckFromJobName() throws IOException
     {
@@ -324,7 +387,7 @@ public class JobcopyBuilderJenkinsTest
             assertEquals(
                     "exist job, overwrite",
                     FormValidation.Kind.OK,
-                    descriptor.doCheckToJobName(null, existJobname, true).kind);
+                    descriptor.doCheckToJobName(null, existJobname, true, null).kind);
         }
 
         // exist job, not overwrite
@@ -335,7 +398,7 @@ public class JobcopyBuilderJenkinsTest
                     descriptor.doCheckToJobName(
                             null,
                             existJobname,
-                            false).kind);
+                            false, null).kind);
         }
 
         // exist job surrounded with blank, not overwrite
@@ -346,7 +409,7 @@ public class JobcopyBuilderJenkinsTest
                     descriptor.doCheckToJobName(
                             null,
                             "  " + existJobname + "  ",
-                            false).kind);
+                            false, null).kind);
         }
 
         // non-exist job, overwrite
@@ -354,7 +417,7 @@ public class JobcopyBuilderJenkinsTest
             assertEquals(
                     "non-exist job",
                     FormValidation.Kind.OK,
-                    descriptor.doCheckToJobName(null, "nosuchjob", true).kind);
+                    descriptor.doCheckToJobName(null, "nosuchjob", true, null).kind);
         }
 
         // non-exist job, not overwrite
@@ -362,7 +425,7 @@ public class JobcopyBuilderJenkinsTest
             assertEquals(
                     "non-exist job",
                     FormValidation.Kind.OK,
-                    descriptor.doCheckToJobName(null, "nosuchjob", false).kind);
+                    descriptor.doCheckToJobName(null, "nosuchjob", false, null).kind);
         }
 
         // uses variable
@@ -373,7 +436,7 @@ public class JobcopyBuilderJenkinsTest
                     descriptor.doCheckToJobName(
                             null,
                             "nosuchjob${name}",
-                            false).kind);
+                            false, null).kind);
         }
 
         // null
@@ -381,7 +444,7 @@ public class JobcopyBuilderJenkinsTest
             assertEquals(
                     "null",
                     FormValidation.Kind.ERROR,
-                    descriptor.doCheckToJobName(null, null, false).kind);
+                    descriptor.doCheckToJobName(null, null, false, null).kind);
         }
 
         // empty
@@ -389,7 +452,7 @@ public class JobcopyBuilderJenkinsTest
             assertEquals(
                     "empty",
                     FormValidation.Kind.ERROR,
-                    descriptor.doCheckToJobName(null, "", false).kind);
+                    descriptor.doCheckToJobName(null, "", false, null).kind);
         }
 
         // blank
@@ -397,7 +460,7 @@ public class JobcopyBuilderJenkinsTest
             assertEquals(
                     "blank",
                     FormValidation.Kind.ERROR,
-                    descriptor.doCheckToJobName(null, "  ", false).kind);
+                    descriptor.doCheckToJobName(null, "  ", false, null).kind);
         }
     }
 
@@ -422,112 +485,112 @@ public class JobcopyBuilderJenkinsTest
         // exist job, overwrite
         assertEquals(
                 FormValidation.Kind.OK,
-                descriptor.doCheckToJobName(job1, "job1", true).kind);
+                descriptor.doCheckToJobName(job1, "job1", true, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
-                descriptor.doCheckToJobName(job1, "folder1/job2", true).kind);
+                descriptor.doCheckToJobName(job1, "folder1/job2", true, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
                 descriptor.doCheckToJobName(
                         job1,
                         "folder1/../job1",
-                        true).kind);
+                        true, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
-                descriptor.doCheckToJobName(job2, "../job1", true).kind);
+                descriptor.doCheckToJobName(job2, "../job1", true, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
-                descriptor.doCheckToJobName(job2, "job2", true).kind);
+                descriptor.doCheckToJobName(job2, "job2", true, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
-                descriptor.doCheckToJobName(job2, "folder2/job3", true).kind);
+                descriptor.doCheckToJobName(job2, "folder2/job3", true, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
                 descriptor.doCheckToJobName(
                         job2,
                         "folder2/../job2",
-                        true).kind);
+                        true, null).kind);
 
         // exist job, not overwrite
         assertEquals(
                 FormValidation.Kind.WARNING,
-                descriptor.doCheckToJobName(job1, "job1", false).kind);
+                descriptor.doCheckToJobName(job1, "job1", false, null).kind);
         assertEquals(
                 FormValidation.Kind.WARNING,
-                descriptor.doCheckToJobName(job1, "folder1/job2", false).kind);
+                descriptor.doCheckToJobName(job1, "folder1/job2", false, null).kind);
         assertEquals(
                 FormValidation.Kind.WARNING,
                 descriptor.doCheckToJobName(
                         job1,
                         "folder1/../job1",
-                        false).kind);
+                        false, null).kind);
         assertEquals(
                 FormValidation.Kind.WARNING,
-                descriptor.doCheckToJobName(job2, "../job1", false).kind);
+                descriptor.doCheckToJobName(job2, "../job1", false, null).kind);
         assertEquals(
                 FormValidation.Kind.WARNING,
-                descriptor.doCheckToJobName(job2, "job2", false).kind);
+                descriptor.doCheckToJobName(job2, "job2", false, null).kind);
         assertEquals(
                 FormValidation.Kind.WARNING,
-                descriptor.doCheckToJobName(job2, "folder2/job3", false).kind);
+                descriptor.doCheckToJobName(job2, "folder2/job3", false, null).kind);
         assertEquals(
                 FormValidation.Kind.WARNING,
                 descriptor.doCheckToJobName(
                         job2,
                         "folder2/../job2",
-                        false).kind);
+                        false, null).kind);
 
         // non-exist job, overwrite
         assertEquals(
                 FormValidation.Kind.OK,
-                descriptor.doCheckToJobName(job1, "job2", true).kind);
+                descriptor.doCheckToJobName(job1, "job2", true, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
-                descriptor.doCheckToJobName(job1, "folder1/job1", true).kind);
+                descriptor.doCheckToJobName(job1, "folder1/job1", true, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
                 descriptor.doCheckToJobName(
                         job1,
                         "folder1/../job2",
-                        true).kind);
+                        true, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
-                descriptor.doCheckToJobName(job2, "job1", true).kind);
+                descriptor.doCheckToJobName(job2, "job1", true, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
-                descriptor.doCheckToJobName(job2, "folder1/job2", true).kind);
+                descriptor.doCheckToJobName(job2, "folder1/job2", true, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
-                descriptor.doCheckToJobName(job2, "job3", true).kind);
+                descriptor.doCheckToJobName(job2, "job3", true, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
-                descriptor.doCheckToJobName(job2, "../job2", true).kind);
+                descriptor.doCheckToJobName(job2, "../job2", true, null).kind);
 
         // non-exist job, not overwrite
         assertEquals(
                 FormValidation.Kind.OK,
-                descriptor.doCheckToJobName(job1, "job2", false).kind);
+                descriptor.doCheckToJobName(job1, "job2", false, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
-                descriptor.doCheckToJobName(job1, "folder1/job1", false).kind);
+                descriptor.doCheckToJobName(job1, "folder1/job1", false, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
                 descriptor.doCheckToJobName(
                         job1,
                         "folder1/../job2",
-                        false).kind);
+                        false, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
-                descriptor.doCheckToJobName(job2, "job1", false).kind);
+                descriptor.doCheckToJobName(job2, "job1", false, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
-                descriptor.doCheckToJobName(job2, "folder1/job2", false).kind);
+                descriptor.doCheckToJobName(job2, "folder1/job2", false, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
-                descriptor.doCheckToJobName(job2, "job3", false).kind);
+                descriptor.doCheckToJobName(job2, "job3", false, null).kind);
         assertEquals(
                 FormValidation.Kind.OK,
-                descriptor.doCheckToJobName(job2, "../job2", false).kind);
+                descriptor.doCheckToJobName(job2, "../job2", false, null).kind);
     }
 
     /**
@@ -1813,6 +1876,123 @@ public class JobcopyBuilderJenkinsTest
         }
     }
 
+    @Test
+    public void testPerformBulk() throws Exception
+    {
+        final FreeStyleProject fromJob = j.createFreeStyleProject("bulkSrc");
+        fromJob.setDescription("Description for ${BRANCH}");
+        fromJob.save();
+        j.createFreeStyleProject("bulkExisting");
+
+        // All targets are copied with their own variables.
+        {
+            final FreeStyleProject copyJob = j.createFreeStyleProject();
+            final JobcopyBuilder builder = new JobcopyBuilder(
+                    "bulkSrc",
+                    null,
+                    true,
+                    Arrays.<JobcopyOperation> asList(
+                            new ReplaceOperation("${BRANCH}", false, "${BRANCH}", true)),
+                    null);
+            builder.setBulkTargets(
+                    "bulkDest-${BRANCH},BRANCH=master\n"
+                    + "# comment\n"
+                    + "bulkDest-${BRANCH},BRANCH=feature\n"
+                    + "bulkExisting,BRANCH=existing\n");
+            assertTrue(builder.isBulk());
+            copyJob.getBuildersList().add(builder);
+
+            final FreeStyleBuild b = j.assertBuildStatusSuccess(copyJob.scheduleBuild2(0));
+
+            assertEquals(
+                    "Description for master",
+                    ((FreeStyleProject) j.getInstance().getItem("bulkDest-master")).getDescription());
+            assertEquals(
+                    "Description for feature",
+                    ((FreeStyleProject) j.getInstance().getItem("bulkDest-feature")).getDescription());
+            assertEquals(
+                    "Description for existing",
+                    ((FreeStyleProject) j.getInstance().getItem("bulkExisting")).getDescription());
+            assertEquals(3, b.getActions(CopiedjobinfoAction.class).size());
+        }
+
+        // Failure of a target does not prevent copying other targets.
+        {
+            final FreeStyleProject copyJob = j.createFreeStyleProject();
+            final JobcopyBuilder builder = new JobcopyBuilder(
+                    "bulkSrc",
+                    null,
+                    false,
+                    Collections.<JobcopyOperation> emptyList(),
+                    null);
+            builder.setBulkTargets("bulkExisting\nbulkDest-new\n");
+            copyJob.getBuildersList().add(builder);
+
+            final FreeStyleBuild b = copyJob.scheduleBuild2(0).get();
+            j.assertBuildStatus(Result.FAILURE, b);
+            assertNotNull(j.getInstance().getItem("bulkDest-new"));
+            assertEquals(1, b.getActions(CopiedjobinfoAction.class).size());
+        }
+
+        // Malformed targets
+        {
+            final FreeStyleProject copyJob = j.createFreeStyleProject();
+            final JobcopyBuilder builder = new JobcopyBuilder(
+                    "bulkSrc",
+                    null,
+                    true,
+                    Collections.<JobcopyOperation> emptyList(),
+                    null);
+            builder.setBulkTargets("bulkDest-malformed,VAR\n");
+            copyJob.getBuildersList().add(builder);
+
+            j.assertBuildStatus(Result.FAILURE, copyJob.scheduleBuild2(0).get());
+            assertNull(j.getInstance().getItem("bulkDest-malformed"));
+        }
+    }
+
+    @Test
+    public void testPerformBulkParallel() throws Exception
+    {
+        final FreeStyleProject fromJob = j.createFreeStyleProject("parallelSrc");
+        fromJob.setDescription("Description for ${INDEX}");
+        fromJob.save();
+        final Folder folder = j.getInstance().createProject(Folder.class, "parallelFolder");
+
+        final StringBuilder targets = new StringBuilder();
+        for (int i = 0; i < 10; ++i)
+        {
+            targets.append(String.format("%sparallelDest%d,INDEX=%d\n", (i % 2 == 0) ? "" : "parallelFolder/", i, i));
+        }
+
+        final FreeStyleProject copyJob = j.createFreeStyleProject();
+        final JobcopyBuilder builder = new JobcopyBuilder(
+                "parallelSrc",
+                null,
+                false,
+                Arrays.<JobcopyOperation> asList(
+                        new ReplaceOperation("${INDEX}", false, "${INDEX}", true)),
+                null);
+        builder.setBulkTargets(targets.toString());
+        builder.setParallelism(4);
+        copyJob.getBuildersList().add(builder);
+
+        final FreeStyleBuild b = j.assertBuildStatusSuccess(copyJob.scheduleBuild2(0));
+
+        final List<CopiedjobinfoAction> actionList = b.getActions(CopiedjobinfoAction.class);
+        assertEquals(10, actionList.size());
+        for (int i = 0; i < 10; ++i)
+        {
+            final String name = String.format("parallelDest%d", i);
+            final FreeStyleProject toJob = (FreeStyleProject) ((i % 2 == 0) ? j.getInstance().getItem(name)
+                    : folder.getItem(name));
+            assertNotNull(name, toJob);
+            assertEquals(String.format("Description for %d", i), toJob.getDescription());
+            // actions are added in the order of targets.
+            assertEquals(name, actionList.get(i).getToJobName());
+        }
+    }
+
     @Test
     public void testView() throws IOException, SAXException
     {
@@ -1896,4 +2076,260 @@ public class JobcopyBuilderJenkinsTest
             assertEquals(combinationFilter, p.getCombinationFilter());
         }
     }
+
+    @Test
+    public void testPerformNotChanged() throws Exception
+    {
+        final FreeStyleProject fromJob = j.createFreeStyleProject("unchangedSrc");
+        fromJob.setDescription("Description");
+        fromJob.save();
+
+        final FreeStyleProject copyJob = j.createFreeStyleProject();
+        copyJob.getBuildersList().add(new JobcopyBuilder(
+                "unchangedSrc",
+                "unchangedDest",
+                true,
+                Collections.<JobcopyOperation> emptyList(),
+                null));
+
+        j.assertBuildStatusSuccess(copyJob.scheduleBuild2(0));
+        final FreeStyleProject toJob = j.getInstance().getItemByFullName("unchangedDest", FreeStyleProject.class);
+        assertNotNull(toJob);
+
+        // The configuration is not updated if not changed.
+        final long timestamp = 1000000000000L;
+        toJob.getConfigFile().getFile().setLastModified(timestamp);
+        {
+            final FreeStyleBuild b = j.assertBuildStatusSuccess(copyJob.scheduleBuild2(0));
+            j.assertLogContains("Not changed: unchangedDest", b);
+            assertEquals(timestamp, toJob.getConfigFile().getFile().lastModified());
+            assertEquals(1, b.getActions(CopiedjobinfoAction.class).size());
+        }
+
+        // The configuration is updated if changed.
+        fromJob.setDescription("Modified description");
+        fromJob.save();
+        {
+            final FreeStyleBuild b = j.assertBuildStatusSuccess(copyJob.scheduleBuild2(0));
+            j.assertLogContains("Updating unchangedDest", b);
+            assertEquals(
+                    "Modified description",
+                    j.getInstance().getItemByFullName("unchangedDest", FreeStyleProject.class).getDescription());
+        }
+    }
+
+    @Test
+    public void testPerformCacheTransformations() throws Exception
+    {
+        TransformationCache.getInstance().clear();
+        final FreeStyleProject fromJob = j.createFreeStyleProject("cacheSrc");
+        fromJob.setDescription("Description for BRANCH");
+        fromJob.save();
+
+        final FreeStyleProject copyJob = j.createFreeStyleProject();
+        final JobcopyBuilder builder = new JobcopyBuilder(
+                "cacheSrc",
+                null,
+                true,
+                Arrays.<JobcopyOperation> asList(new ReplaceOperation("BRANCH", false, "${BRANCH}", true)),
+                null);
+        builder.setBulkTargets("cacheDest-master,BRANCH=master\ncacheDest-feature,BRANCH=feature\n");
+        builder.setCacheTransformations(true);
+        copyJob.getBuildersList().add(builder);
+
+        {
+            final FreeStyleBuild b = j.assertBuildStatusSuccess(copyJob.scheduleBuild2(0));
+            j.assertLogContains("Transformation cache: 0 hits, 2 misses", b);
+        }
+
+        // transformed configurations are reused.
+        {
+            final FreeStyleBuild b = j.assertBuildStatusSuccess(copyJob.scheduleBuild2(0));
+            j.assertLogContains("Transformation cache: 2 hits, 0 misses", b);
+            assertEquals(
+                    "Description for master",
+                    j.getInstance().getItemByFullName("cacheDest-master", FreeStyleProject.class).getDescription());
+            assertEquals(
+                    "Description for feature",
+                    j.getInstance().getItemByFullName("cacheDest-feature", FreeStyleProject.class).getDescription());
+        }
+
+        // not reused if the source is changed.
+        fromJob.setDescription("Modified description for BRANCH");
+        fromJob.save();
+        {
+            final FreeStyleBuild b = j.assertBuildStatusSuccess(copyJob.scheduleBuild2(0));
+            j.assertLogContains("Transformation cache: 0 hits, 2 misses", b);
+            assertEquals(
+                    "Modified description for master",
+                    j.getInstance().getItemByFullName("cacheDest-master", FreeStyleProject.class).getDescription());
+        }
+    }
+
+    @Test
+    public void testPerformTimings() throws Exception
+    {
+        j.createFreeStyleProject("timingsSrc");
+        final FreeStyleProject copyJob = j.createFreeStyleProject();
+        copyJob.getBuildersList().add(new JobcopyBuilder(
+                "timingsSrc",
+                "timingsDest",
+                true,
+                Arrays.<JobcopyOperation> asList(
+                        new ReplaceOperation("timingsSrc", false, "timingsDest", false),
+                        new EnableOperation()),
+                null));
+
+        final FreeStyleBuild b = j.assertBuildStatusSuccess(copyJob.scheduleBuild2(0));
+        final PhaseTimings timings = b.getAction(CopiedjobinfoAction.class).getTimings();
+        assertNotNull(timings);
+        final List<String> nameList = new ArrayList<String>();
+        for (final PhaseTimings.Phase phase : timings.getPhaseList())
+        {
+            nameList.add(phase.getName());
+        }
+        assertEquals(
+                Arrays.asList(
+                        "Look up the job copied from",
+                        "Read the configuration",
+                        "Prepare the configuration",
+                        "Look up the job copied to",
+                        "Copy the parsed configuration",
+                        "Operation 1: ReplaceOperation",
+                        "Operation 2: EnableOperation",
+                        "Serialize the configuration",
+                        "Create the job"),
+                nameList);
+        for (final PhaseTimings.Phase phase : timings.getPhaseList())
+        {
+            assertFalse(phase.getName(), phase.isShared());
+        }
+
+        // shown in the build page.
+        final WebClient wc = j.createWebClient();
+        wc.getPage(b);
+
+        // phases before copying to each target are shared in bulk mode.
+        final JobcopyBuilder bulk = new JobcopyBuilder("timingsSrc", null, true, null, null);
+        bulk.setBulkTargets("timingsBulk1\ntimingsBulk2\n");
+        final FreeStyleProject bulkCopyJob = j.createFreeStyleProject();
+        bulkCopyJob.getBuildersList().add(bulk);
+
+        final FreeStyleBuild bulkBuild = j.assertBuildStatusSuccess(bulkCopyJob.scheduleBuild2(0));
+        final List<CopiedjobinfoAction> actionList = bulkBuild.getActions(CopiedjobinfoAction.class);
+        assertEquals(2, actionList.size());
+        for (final CopiedjobinfoAction action : actionList)
+        {
+            final List<PhaseTimings.Phase> phaseList = action.getTimings().getPhaseList();
+            assertEquals("Look up the job copied from", phaseList.get(0).getName());
+            assertTrue(phaseList.get(0).isShared());
+            assertEquals("Read the configuration", phaseList.get(1).getName());
+            assertTrue(phaseList.get(1).isShared());
+            assertFalse(phaseList.get(phaseList.size() - 1).isShared());
+        }
+        wc.getPage(bulkBuild);
+    }
+
+    @Test
+    public void testPerformDryRun() throws Exception
+    {
+        final FreeStyleProject fromJob = j.createFreeStyleProject("dryRunSrc");
+        fromJob.setDescription("Description for BRANCH");
+        fromJob.save();
+        final FreeStyleProject existingJob = j.createFreeStyleProject("dryRunDest-master");
+        existingJob.setDescription("Original description");
+        existingJob.save();
+
+        final FreeStyleProject copyJob = j.createFreeStyleProject();
+        final JobcopyBuilder builder = new JobcopyBuilder(
+                "dryRunSrc",
+                null,
+                true,
+                Arrays.<JobcopyOperation> asList(new ReplaceOperation("BRANCH", false, "${BRANCH}", true)),
+                null);
+        builder.setBulkTargets("dryRunDest-master,BRANCH=master\ndryRunDest-feature,BRANCH=feature\n");
+        builder.setDryRun(true);
+        copyJob.getBuildersList().add(builder);
+
+        final FreeStyleBuild b = j.assertBuildStatusSuccess(copyJob.scheduleBuild2(0));
+        j.assertLogContains("Would update dryRunDest-master", b);
+        j.assertLogContains("Would create dryRunDest-feature", b);
+        j.assertLogContains("Dry run: 1 to create, 1 to update, 0 not changed, 0 failed", b);
+        assertNull(j.getInstance().getItemByFullName("dryRunDest-feature"));
+        assertEquals("Original description", existingJob.getDescription());
+        assertEquals(0, b.getActions(CopiedjobinfoAction.class).size());
+
+        // would fail for a job not to be overwritten.
+        final JobcopyBuilder notOverwrite = new JobcopyBuilder("dryRunSrc", "dryRunDest-master", false, null, null);
+        notOverwrite.setDryRun(true);
+        copyJob.getBuildersList().replace(notOverwrite);
+        j.assertBuildStatus(Result.FAILURE, copyJob.scheduleBuild2(0).get());
+    }
+
+    @Test
+    public void testPerformBulkStaged() throws Exception
+    {
+        final FreeStyleProject downstream = j.createFreeStyleProject("batchDownstream");
+        final FreeStyleProject fromJob = j.createFreeStyleProject("batchSrc");
+        fromJob.setDescription("Description for BRANCH");
+        fromJob.getPublishersList().add(new BuildTrigger("batchDownstream", Result.SUCCESS));
+        fromJob.save();
+        final FreeStyleProject existingJob = j.createFreeStyleProject("batchDest-master");
+        existingJob.setDescription("Original description");
+        existingJob.save();
+
+        final FreeStyleProject copyJob = j.createFreeStyleProject();
+        final JobcopyBuilder builder = new JobcopyBuilder(
+                "batchSrc",
+                null,
+                true,
+                Arrays.<JobcopyOperation> asList(new ReplaceOperation("BRANCH", false, "${BRANCH}", true)),
+                null);
+        builder.setBulkTargets("batchDest-master,BRANCH=master\n"
+                + "noSuchFolder/batchDest-fail,BRANCH=fail\n"
+                + "batchDest-feature,BRANCH=feature\n");
+        builder.setParallelism(2);
+        copyJob.getBuildersList().add(builder);
+
+        // a target failed to be created does not prevent others.
+        final FreeStyleBuild b = j.assertBuildStatus(Result.FAILURE, copyJob.scheduleBuild2(0).get());
+        j.assertLogContains("Applying 3 of 3 configurations", b);
+        j.assertLogContains("Error: Target folder 'noSuchFolder' was not found.", b);
+        j.assertLogContains("Copied 2 of 3 jobs", b);
+        assertEquals(2, b.getActions(CopiedjobinfoAction.class).size());
+
+        final FreeStyleProject masterJob = j.getInstance().getItemByFullName("batchDest-master", FreeStyleProject.class);
+        final FreeStyleProject featureJob = j.getInstance().getItemByFullName("batchDest-feature", FreeStyleProject.class);
+        assertEquals("Description for master", masterJob.getDescription());
+        assertEquals("Description for feature", featureJob.getDescription());
+
+        // the dependency graph is rebuilt as requested by Jenkins.
+        j.getInstance().rebuildDependencyGraphAsync().get();
+        assertTrue(j.getInstance().getDependencyGraph().getDownstream(masterJob).contains(downstream));
+        assertTrue(j.getInstance().getDependencyGraph().getDownstream(featureJob).contains(downstream));
+    }
+
+    @Test
+    public void testPerformAdditionalFilesAfterUpdate() throws Exception
+    {
+        final FreeStyleProject fromJob = j.createFreeStyleProject("filesAfterUpdateSrc");
+        fromJob.setQuietPeriod(12345);
+        fromJob.save();
+        FileUtils.writeStringToFile(new File(fromJob.getRootDir(), "extra.txt"), "extra");
+        final FreeStyleProject toJob = j.createFreeStyleProject("filesAfterUpdateDest");
+
+        final List<AdditionalFileset> filesetList = new ArrayList<AdditionalFileset>();
+        filesetList.add(new AdditionalFileset("extra.txt", null, true, null));
+        final FreeStyleProject copyJob = j.createFreeStyleProject();
+        copyJob.getBuildersList().add(new JobcopyBuilder(
+                "filesAfterUpdateSrc",
+                "filesAfterUpdateDest",
+                true,
+                Arrays.<JobcopyOperation> asList(new ReplaceOperation("12345", false, "notANumber", false)),
+                filesetList));
+
+        // files are not written when the job fails to be updated.
+        j.assertBuildStatus(Result.FAILURE, copyJob.scheduleBuild2(0).get());
+        assertFalse(new File(toJob.getRootDir(), "extra.txt").exists());
+    }
 }
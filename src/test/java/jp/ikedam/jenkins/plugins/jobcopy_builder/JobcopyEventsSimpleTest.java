@@ -0,0 +1,82 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for JobcopyEvents not corresponded to Jenkins.
+ *
+ * Events are emitted or not depending on the JVM and the build profile.
+ * Either way, emitting them should not affect copying.
+ */
+public class JobcopyEventsSimpleTest
+{
+    @Test
+    public void testEvents()
+    {
+        final JobcopyEvents events = JobcopyEvents.getInstance();
+        assertNotNull(events);
+
+        final JobcopyEvents.CopyEvent copyEvent = events.newCopyEvent();
+        copyEvent.begin();
+        copyEvent.setBytes(100);
+
+        // nested operation events
+        final JobcopyEvents.OperationEvent operationEvent = events.newOperationEvent();
+        operationEvent.begin();
+        final JobcopyEvents.OperationEvent nestedEvent = events.newOperationEvent();
+        nestedEvent.begin();
+        events.addMatches(2);
+        nestedEvent.commit(new EnableOperation(), true);
+        operationEvent.commit(new EnableOperation(), true);
+
+        // no operation in progress
+        events.addMatches(1);
+
+        final JobcopyEvents.AdditionalFileEvent fileEvent = events.newAdditionalFileEvent();
+        fileEvent.begin();
+        fileEvent.commit("path/to/file", 10, "WRITTEN");
+
+        copyEvent.commit("from", "to", true);
+    }
+
+    /**
+     * Builds with the profile jfr must contain the events.
+     */
+    @Test
+    public void testAvailableWhenRequired()
+    {
+        if(!Boolean.getBoolean("jp.ikedam.jenkins.plugins.jobcopy_builder.JobcopyEvents.required"))
+        {
+            return;
+        }
+        assertTrue(
+                "Events for Java Flight Recorder are not built. Build with the profile jfr on JDK 11 or later.",
+                JobcopyEvents.getInstance().isAvailable());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for JobcopyLogLevel not corresponded to Jenkins.
+ */
+public class JobcopyLogLevelSimpleTest
+{
+    private static final String ORIGINAL = "<root>\n  <node>value</node>\n  <other>other</other>\n</root>";
+    private static final String COPIED = "<root>\n  <node>replaced</node>\n  <other>other</other>\n</root>";
+
+    private ByteArrayOutputStream stream;
+    private PrintStream logger;
+
+    @Before
+    public void initTest()
+    {
+        stream = new ByteArrayOutputStream();
+        logger = new PrintStream(stream, true);
+    }
+
+    private String getLog(final JobcopyLogLevel level, final String copied)
+    {
+        stream.reset();
+        level.logOriginal("Original xml", ORIGINAL, logger);
+        level.logCopied("Copied xml", ORIGINAL, copied, logger);
+        return stream.toString();
+    }
+
+    @Test
+    public void testNone()
+    {
+        assertEquals("", getLog(JobcopyLogLevel.NONE, COPIED));
+    }
+
+    @Test
+    public void testSummary()
+    {
+        final String log = getLog(JobcopyLogLevel.SUMMARY, COPIED);
+        assertTrue(log, log.contains(String.format("Original xml: %d characters, MD5 ", ORIGINAL.length())));
+        assertTrue(log, log.contains(String.format("Copied xml: %d characters, MD5 ", COPIED.length())));
+        assertFalse(log, log.contains("<node>"));
+        assertFalse(log, log.contains("not changed"));
+
+        assertTrue(getLog(JobcopyLogLevel.SUMMARY, ORIGINAL).contains("not changed"));
+    }
+
+    @Test
+    public void testDiff()
+    {
+        final String log = getLog(JobcopyLogLevel.DIFF, COPIED);
+        assertTrue(log, log.contains("@@ -2 +2 @@"));
+        assertTrue(log, log.contains("-  <node>value</node>"));
+        assertTrue(log, log.contains("+  <node>replaced</node>"));
+        assertFalse(log, log.contains("<other>"));
+
+        assertTrue(getLog(JobcopyLogLevel.DIFF, ORIGINAL).contains("not changed"));
+    }
+
+    @Test
+    public void testFull()
+    {
+        final String log = getLog(JobcopyLogLevel.FULL, COPIED);
+        assertTrue(log, log.contains("Original xml:"));
+        assertTrue(log, log.contains(ORIGINAL));
+        assertTrue(log, log.contains("Copied xml:"));
+        assertTrue(log, log.contains(COPIED));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.ObjectName;
+
+import net.sf.json.JSONObject;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import com.gargoylesoftware.htmlunit.Page;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+
+/**
+ * Tests for JobcopyMetrics and JobcopyMetricsAction corresponded to Jenkins.
+ */
+public class JobcopyMetricsJenkinsTest
+{
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testMetrics() throws Exception
+    {
+        final JobcopyMetrics metrics = JobcopyMetrics.getInstance();
+        metrics.reset();
+
+        final FreeStyleProject fromJob = j.createFreeStyleProject("metricsSrc");
+        fromJob.setDescription("Description for metricsSrc");
+        fromJob.save();
+        final FreeStyleProject copyJob = j.createFreeStyleProject();
+        copyJob.getBuildersList().add(new JobcopyBuilder(
+                "metricsSrc",
+                "metricsDest",
+                true,
+                Arrays.<JobcopyOperation> asList(new ReplaceOperation("metricsSrc", false, "metricsDest", false)),
+                null));
+        j.assertBuildStatusSuccess(copyJob.scheduleBuild2(0));
+
+        // the source is not found.
+        final FreeStyleProject failJob = j.createFreeStyleProject();
+        failJob.getBuildersList().add(new JobcopyBuilder("noSuchJob", "metricsDest2", true, null, null));
+        final FreeStyleBuild failBuild = j.assertBuildStatus(Result.FAILURE, failJob.scheduleBuild2(0).get());
+        j.assertLogContains("Error: Item 'noSuchJob' was not found.", failBuild);
+
+        assertEquals(1, metrics.getCopyCount());
+        assertEquals(1, metrics.getReplacements());
+        assertEquals(1, metrics.getFailureCount());
+        assertEquals(Long.valueOf(1), metrics.getFailuresByCause().get("SOURCE_NOT_FOUND"));
+
+        // exposed as JSON.
+        final Page page = j.createWebClient().goTo("jobcopy-metrics/", "application/json");
+        final JSONObject json = JSONObject.fromObject(page.getWebResponse().getContentAsString());
+        assertEquals(1, json.getJSONObject("copyTime").getLong("count"));
+        assertEquals(1, json.getLong("replacements"));
+        assertEquals(1, json.getJSONObject("failuresByCause").getLong("SOURCE_NOT_FOUND"));
+
+        // exposed via JMX.
+        assertEquals(
+                1L,
+                ManagementFactory.getPlatformMBeanServer().getAttribute(
+                        new ObjectName(JobcopyMetricsAction.OBJECT_NAME),
+                        "CopyCount"));
+    }
+}
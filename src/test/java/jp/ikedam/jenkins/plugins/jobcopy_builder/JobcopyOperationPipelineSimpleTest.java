@@ -0,0 +1,303 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import hudson.EnvVars;
+
+/**
+ * Tests for JobcopyOperationPipeline not corresponded to Jenkins.
+ */
+public class JobcopyOperationPipelineSimpleTest
+{
+    EnvVars env;
+    ByteArrayOutputStream stream;
+    PrintStream logger;
+
+    private static class RecordingXmlOperation extends AbstractXmlJobcopyOperation
+    {
+        public List<Document> passedDocumentList = new ArrayList<Document>();
+        public boolean fail = false;
+
+        @Override
+        public Document perform(final Document doc, final EnvVars env, final PrintStream logger)
+        {
+            passedDocumentList.add(doc);
+            return fail ? null : doc;
+        }
+    }
+
+    private static class RecordingStringOperation extends JobcopyOperation
+    {
+        public List<String> passedStringList = new ArrayList<String>();
+
+        @Override
+        public String perform(final String xmlString, final String encoding, final EnvVars env,
+                final PrintStream logger)
+        {
+            passedStringList.add(xmlString);
+            return xmlString;
+        }
+    }
+
+    private Document getXmlDocumentFromString(final String xmlString)
+            throws ParserConfigurationException, UnsupportedEncodingException, SAXException, IOException
+    {
+        final DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
+        final DocumentBuilder builder = domFactory.newDocumentBuilder();
+        final InputStream is = new ByteArrayInputStream(xmlString.getBytes("UTF-8"));
+
+        return builder.parse(is);
+    }
+
+    @Before
+    public void initTest()
+    {
+        env = new EnvVars();
+        env.put("VAR1", "VALUE1");
+        stream = new ByteArrayOutputStream();
+        logger = new PrintStream(stream);
+    }
+
+    @After
+    public void cleanupTest()
+    {
+        env.clear();
+        logger.close();
+        try
+        {
+            stream.close();
+        } catch (final IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void testPerformSharesDocument()
+    {
+        final String xml = "<?xml version=\"1.0\"?><root><node>value</node></root>";
+        final RecordingXmlOperation op1 = new RecordingXmlOperation();
+        final RecordingXmlOperation op2 = new RecordingXmlOperation();
+        final RecordingXmlOperation op3 = new RecordingXmlOperation();
+        final JobcopyOperationPipeline target = new JobcopyOperationPipeline(
+                Arrays.<JobcopyOperation> asList(op1, op2, op3));
+
+        assertNotNull(target.perform(xml, "UTF-8", env, logger));
+        assertEquals(1, op1.passedDocumentList.size());
+        assertSame(op1.passedDocumentList.get(0), op2.passedDocumentList.get(0));
+        assertSame(op1.passedDocumentList.get(0), op3.passedDocumentList.get(0));
+    }
+
+    @Test
+    public void testPerformMixed() throws Exception
+    {
+        final String xml = "<?xml version=\"1.0\"?>"
+                + "<root><disabled>true</disabled><node>some target value</node></root>";
+        final RecordingStringOperation stringOp = new RecordingStringOperation();
+        final RecordingXmlOperation xmlOp1 = new RecordingXmlOperation();
+        final RecordingXmlOperation xmlOp2 = new RecordingXmlOperation();
+        final JobcopyOperationPipeline target = new JobcopyOperationPipeline(Arrays.<JobcopyOperation> asList(
+                new ReplaceOperation("target", false, "${VAR1}", true),
+                new EnableOperation(),
+                stringOp,
+                xmlOp1,
+                xmlOp2));
+
+        final String result = target.perform(xml, "UTF-8", env, logger);
+        assertNotNull(result);
+
+        // string operations receive the result of preceding xml operations.
+        assertEquals(1, stringOp.passedStringList.size());
+        final Document passedDoc = getXmlDocumentFromString(stringOp.passedStringList.get(0));
+        assertEquals("false", passedDoc.getElementsByTagName("disabled").item(0).getTextContent());
+        assertEquals("some VALUE1 value", passedDoc.getElementsByTagName("node").item(0).getTextContent());
+
+        // xml operations after the string operation share a new document.
+        assertEquals(1, xmlOp1.passedDocumentList.size());
+        assertSame(xmlOp1.passedDocumentList.get(0), xmlOp2.passedDocumentList.get(0));
+
+        final Document doc = getXmlDocumentFromString(result);
+        assertEquals("false", doc.getElementsByTagName("disabled").item(0).getTextContent());
+        assertEquals("some VALUE1 value", doc.getElementsByTagName("node").item(0).getTextContent());
+    }
+
+    @Test
+    public void testPerformFailure()
+    {
+        final String xml = "<?xml version=\"1.0\"?><root><node>value</node></root>";
+        final RecordingXmlOperation op1 = new RecordingXmlOperation();
+        final RecordingXmlOperation op2 = new RecordingXmlOperation();
+        final RecordingStringOperation op3 = new RecordingStringOperation();
+        op1.fail = true;
+        final JobcopyOperationPipeline target = new JobcopyOperationPipeline(
+                Arrays.<JobcopyOperation> asList(op1, op2, op3));
+
+        assertNull(target.perform(xml, "UTF-8", env, logger));
+        assertEquals(0, op2.passedDocumentList.size());
+        assertEquals(0, op3.passedStringList.size());
+
+        // Invalid XML
+        final RecordingXmlOperation op4 = new RecordingXmlOperation();
+        final RecordingXmlOperation op5 = new RecordingXmlOperation();
+        assertNull(new JobcopyOperationPipeline(Arrays.<JobcopyOperation> asList(op4, op5))
+                .perform("hogehoge", "UTF-8", env, logger));
+        assertEquals(0, op4.passedDocumentList.size());
+    }
+
+    @Test
+    public void testPerformNoOperations()
+    {
+        final String xml = "<?xml version=\"1.0\"?><root><node>value</node></root>";
+        assertSame(xml, new JobcopyOperationPipeline(null).perform(xml, "UTF-8", env, logger));
+        assertSame(xml, new JobcopyOperationPipeline(new ArrayList<JobcopyOperation>())
+                .perform(xml, "UTF-8", env, logger));
+    }
+
+    @Test
+    public void testPrepare() throws Exception
+    {
+        final String xml = "<?xml version=\"1.0\"?>"
+                + "<root><disabled>true</disabled><node>some target value</node></root>";
+        final JobcopyOperationPipeline pipeline = new JobcopyOperationPipeline(Arrays.<JobcopyOperation> asList(
+                new ReplaceOperation("target", false, "${VAR1}", true),
+                new EnableOperation()));
+        final JobcopyOperationPipeline.Template template = pipeline.prepare(xml, "UTF-8", logger);
+        assertNotNull(template);
+
+        final EnvVars env1 = new EnvVars(env);
+        env1.put("VAR1", "first");
+        final EnvVars env2 = new EnvVars(env);
+        env2.put("VAR1", "second");
+
+        final Document doc1 = getXmlDocumentFromString(template.perform(env1, logger));
+        final Document doc2 = getXmlDocumentFromString(template.perform(env2, logger));
+
+        // each target works with its own copy of the configuration.
+        assertEquals("some first value", doc1.getElementsByTagName("node").item(0).getTextContent());
+        assertEquals("false", doc1.getElementsByTagName("disabled").item(0).getTextContent());
+        assertEquals("some second value", doc2.getElementsByTagName("node").item(0).getTextContent());
+        assertEquals("false", doc2.getElementsByTagName("disabled").item(0).getTextContent());
+
+        // same as performed without preparing.
+        assertEquals(pipeline.perform(xml, "UTF-8", env1, logger), template.perform(env1, logger));
+    }
+
+    @Test
+    public void testPrepareMixed() throws Exception
+    {
+        final String xml = "<?xml version=\"1.0\"?><root><node>value</node></root>";
+        final RecordingXmlOperation xmlOp = new RecordingXmlOperation();
+        final RecordingStringOperation stringOp = new RecordingStringOperation();
+        final JobcopyOperationPipeline.Template template = new JobcopyOperationPipeline(
+                Arrays.<JobcopyOperation> asList(xmlOp, stringOp)).prepare(xml, "UTF-8", logger);
+
+        assertNotNull(template.perform(env, logger));
+        assertNotNull(template.perform(env, logger));
+        assertEquals(2, xmlOp.passedDocumentList.size());
+        assertNotSame(xmlOp.passedDocumentList.get(0), xmlOp.passedDocumentList.get(1));
+        assertEquals(2, stringOp.passedStringList.size());
+    }
+
+    @Test
+    public void testPrepareNoXmlOperations()
+    {
+        final String xml = "<?xml version=\"1.0\"?><root><node>value</node></root>";
+        final RecordingStringOperation stringOp = new RecordingStringOperation();
+        final JobcopyOperationPipeline.Template template = new JobcopyOperationPipeline(
+                Arrays.<JobcopyOperation> asList(stringOp)).prepare(xml, "UTF-8", logger);
+
+        assertSame(xml, template.perform(env, logger));
+        assertSame(xml, new JobcopyOperationPipeline(null).prepare(xml, "UTF-8", logger).perform(env, logger));
+    }
+
+    @Test
+    public void testPrepareFailure()
+    {
+        final RecordingXmlOperation xmlOp = new RecordingXmlOperation();
+        assertNull(new JobcopyOperationPipeline(Arrays.<JobcopyOperation> asList(xmlOp))
+                .prepare("hogehoge", "UTF-8", logger));
+
+        final String xml = "<?xml version=\"1.0\"?><root><node>value</node></root>";
+        xmlOp.fail = true;
+        assertNull(new JobcopyOperationPipeline(Arrays.<JobcopyOperation> asList(xmlOp))
+                .prepare(xml, "UTF-8", logger).perform(env, logger));
+    }
+
+    @Test
+    public void testPrepareTimings()
+    {
+        final String xml = "<?xml version=\"1.0\"?><root><node>value</node></root>";
+        final JobcopyOperationPipeline.Template template = new JobcopyOperationPipeline(
+                Arrays.<JobcopyOperation> asList(
+                        new RecordingXmlOperation(),
+                        new RecordingXmlOperation(),
+                        new RecordingStringOperation(),
+                        new RecordingXmlOperation()))
+                .prepare(xml, "UTF-8", logger);
+
+        final PhaseTimings timings = new PhaseTimings();
+        assertNotNull(template.perform(env, logger, timings));
+
+        final List<String> nameList = new ArrayList<String>();
+        for (final PhaseTimings.Phase phase : timings.getPhaseList())
+        {
+            nameList.add(phase.getName());
+        }
+        assertEquals(
+                Arrays.asList(
+                        "Copy the parsed configuration",
+                        "Operation 1: RecordingXmlOperation",
+                        "Operation 2: RecordingXmlOperation",
+                        "Serialize the configuration",
+                        "Operation 3: RecordingStringOperation",
+                        "Operation 4: RecordingXmlOperation"),
+                nameList);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for JobcopyTarget not corresponded to Jenkins.
+ */
+public class JobcopyTargetSimpleTest
+{
+    @Test
+    public void testParse()
+    {
+        final List<JobcopyTarget> targetList = JobcopyTarget.parse(
+                "job1\r\n"
+                + "\n"
+                + "# comment\n"
+                + "  folder/job2 , BRANCH=feature , EMPTY= ,\n"
+                + "job-${SUFFIX},SUFFIX=3,URL=http://example.com/?a=b\n");
+
+        assertEquals(3, targetList.size());
+
+        assertEquals("job1", targetList.get(0).getJobName());
+        assertTrue(targetList.get(0).getVariables().isEmpty());
+
+        assertEquals("folder/job2", targetList.get(1).getJobName());
+        assertEquals(2, targetList.get(1).getVariables().size());
+        assertEquals("feature", targetList.get(1).getVariables().get("BRANCH"));
+        assertEquals("", targetList.get(1).getVariables().get("EMPTY"));
+
+        assertEquals("job-${SUFFIX}", targetList.get(2).getJobName());
+        assertEquals("3", targetList.get(2).getVariables().get("SUFFIX"));
+        assertEquals("http://example.com/?a=b", targetList.get(2).getVariables().get("URL"));
+    }
+
+    @Test
+    public void testParseEmpty()
+    {
+        assertTrue(JobcopyTarget.parse(null).isEmpty());
+        assertTrue(JobcopyTarget.parse("").isEmpty());
+        assertTrue(JobcopyTarget.parse("\n  \n# comment only\n").isEmpty());
+    }
+
+    @Test
+    public void testParseInvalid()
+    {
+        final String[] invalids = {
+                ",VAR=value",
+                "job1\njob2,VAR",
+                "job1,=value",
+                "job1, =value",
+        };
+        for (final String invalid : invalids)
+        {
+            try
+            {
+                JobcopyTarget.parse(invalid);
+                fail("Not reachable: " + invalid);
+            } catch (final IllegalArgumentException e)
+            {
+                assertTrue(true);
+            }
+        }
+    }
+}
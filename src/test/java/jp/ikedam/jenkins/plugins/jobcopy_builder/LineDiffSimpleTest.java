@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for LineDiff not corresponded to Jenkins.
+ */
+public class LineDiffSimpleTest
+{
+    @Test
+    public void testSplitLines()
+    {
+        assertEquals(Arrays.asList("a", "b", "", "c"), LineDiff.splitLines("a\nb\r\n\rc"));
+        assertEquals(Arrays.asList("a", "b"), LineDiff.splitLines("a\nb\n"));
+        assertEquals(Collections.<String> emptyList(), LineDiff.splitLines(""));
+    }
+
+    @Test
+    public void testDiffNoChange()
+    {
+        assertTrue(LineDiff.diff("a\nb\nc\n", "a\nb\nc\n").isEmpty());
+        assertTrue(LineDiff.diff("", "").isEmpty());
+        // only line separators differ.
+        assertTrue(LineDiff.diff("a\r\nb\r\n", "a\nb\n").isEmpty());
+    }
+
+    @Test
+    public void testDiffChanged()
+    {
+        assertEquals(
+                Arrays.asList("@@ -2 +2 @@", "-b", "+B"),
+                LineDiff.diff("a\nb\nc\n", "a\nB\nc\n"));
+        assertEquals(
+                Arrays.asList("@@ -2 +2 @@", "-b", "+B", "@@ -4 +4 @@", "-d", "+D"),
+                LineDiff.diff("a\nb\nc\nd\ne\n", "a\nB\nc\nD\ne\n"));
+        assertEquals(
+                Arrays.asList("@@ -1,2 +1 @@", "-a", "-b", "+x"),
+                LineDiff.diff("a\nb\nc\n", "x\nc\n"));
+    }
+
+    @Test
+    public void testDiffAddedRemoved()
+    {
+        assertEquals(
+                Arrays.asList("@@ -1,0 +2 @@", "+b"),
+                LineDiff.diff("a\nc\n", "a\nb\nc\n"));
+        assertEquals(
+                Arrays.asList("@@ -2 +1,0 @@", "-b"),
+                LineDiff.diff("a\nb\nc\n", "a\nc\n"));
+        assertEquals(
+                Arrays.asList("@@ -0,0 +1,2 @@", "+a", "+b"),
+                LineDiff.diff("", "a\nb\n"));
+    }
+
+    @Test
+    public void testDiffMany()
+    {
+        // compared with LCS: reported as separated hunks.
+        final StringBuilder original = new StringBuilder();
+        final StringBuilder modified = new StringBuilder();
+        for (int i = 0; i < 500; ++i)
+        {
+            original.append("line").append(i).append('\n');
+            if(i % 3 != 1)
+            {
+                modified.append((i % 3 == 0) ? "line" : "LINE").append(i).append('\n');
+            }
+        }
+
+        final List<String> diff = LineDiff.diff(original.toString(), modified.toString());
+        // lines 1, 4, ... are removed, and lines 2, 5, ... are replaced.
+        assertEquals(Arrays.asList("@@ -2,2 +2 @@", "-line1", "-line2", "+LINE2"), diff.subList(0, 4));
+        assertEquals(Arrays.asList("@@ -5,2 +4 @@", "-line4", "-line5", "+LINE5"), diff.subList(4, 8));
+        // line 499 is removed at last.
+        assertEquals(Arrays.asList("@@ -500 +333,0 @@", "-line499"), diff.subList(166 * 4, diff.size()));
+    }
+
+    @Test
+    public void testDiffLarge()
+    {
+        // too large to compare with LCS: reported as one block.
+        final StringBuilder original = new StringBuilder("head\n");
+        final StringBuilder modified = new StringBuilder("head\n");
+        for (int i = 0; i < 1001; ++i)
+        {
+            original.append("line").append(i).append('\n');
+            modified.append((i % 2 == 0) ? "LINE" : "line").append(i).append('\n');
+        }
+        original.append("tail\n");
+        modified.append("tail\n");
+
+        final List<String> diff = LineDiff.diff(original.toString(), modified.toString());
+        assertEquals("@@ -2,1001 +2,1001 @@", diff.get(0));
+        assertEquals(1 + 1001 * 2, diff.size());
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import hudson.EnvVars;
+
+/**
+ * Tests for MultipleReplaceOperation not corresponded to Jenkins.
+ */
+public class MultipleReplaceOperationSimpleTest
+{
+    EnvVars env;
+    ByteArrayOutputStream stream;
+    PrintStream logger;
+
+    private Document getXmlDocumentFromString(final String xmlString)
+            throws ParserConfigurationException, UnsupportedEncodingException, SAXException, IOException
+    {
+        final DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
+        final DocumentBuilder builder = domFactory.newDocumentBuilder();
+        final InputStream is = new ByteArrayInputStream(xmlString.getBytes("UTF-8"));
+
+        return builder.parse(is);
+    }
+
+    @Before
+    public void initTest()
+    {
+        env = new EnvVars();
+        env.put("VAR1", "VALUE1");
+        env.put("VAR2", "VALUE2");
+        env.put("EMPTY", "");
+        stream = new ByteArrayOutputStream();
+        logger = new PrintStream(stream);
+    }
+
+    @After
+    public void cleanupTest()
+    {
+        env.clear();
+        logger.close();
+        try
+        {
+            stream.close();
+        } catch (final IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void testPerform() throws Exception
+    {
+        final String xml = "<?xml version=\"1.0\"?>"
+                + "<root attr=\"alpha\">"
+                + "<alpha>alpha beta gamma</alpha>"
+                + "<node>beta alphabet</node>"
+                + "</root>";
+        final MultipleReplaceOperation target = new MultipleReplaceOperation(
+                Arrays.asList(
+                        new ReplaceEntry("alpha", "beta"),
+                        new ReplaceEntry("beta", "alpha"),
+                        new ReplaceEntry("alphabet", "ABC")),
+                false,
+                false);
+        final String result = target.perform(xml, "UTF-8", env, logger);
+        assertNotNull("Multiple replace", result);
+        final Document doc = getXmlDocumentFromString(result);
+        assertEquals("Attributes will not be replaced", "alpha", doc.getDocumentElement().getAttribute("attr"));
+        assertEquals(
+                "Node name will not be replaced",
+                "beta alpha gamma",
+                doc.getElementsByTagName("alpha").item(0).getTextContent());
+        assertEquals("Longest", "alpha ABC", doc.getElementsByTagName("node").item(0).getTextContent());
+    }
+
+    @Test
+    public void testPerformCData() throws Exception
+    {
+        final String xml = "<?xml version=\"1.0\"?>"
+                + "<root>"
+                + "<script><![CDATA[if(alpha < beta) {}]]></script>"
+                + "<node>alpha<![CDATA[beta]]>alpha</node>"
+                + "</root>";
+        final MultipleReplaceOperation target = new MultipleReplaceOperation(
+                Arrays.asList(new ReplaceEntry("alpha", "beta"), new ReplaceEntry("beta", "alpha")),
+                false,
+                false);
+        final String result = target.perform(xml, "UTF-8", env, logger);
+        assertNotNull("CDATA", result);
+        assertTrue("CDATA sections are kept", result.contains("<![CDATA[if(beta < alpha) {}]]>"));
+        final Document doc = getXmlDocumentFromString(result);
+        assertEquals("CDATA", "if(beta < alpha) {}", doc.getElementsByTagName("script").item(0).getTextContent());
+        assertEquals("Mixed", "betaalphabeta", doc.getElementsByTagName("node").item(0).getTextContent());
+
+        // same as ReplaceOperation.
+        assertEquals(
+                "Same as ReplaceOperation",
+                new ReplaceOperation("alpha", false, "beta", false).perform(xml, "UTF-8", env, logger),
+                new MultipleReplaceOperation(Arrays.asList(new ReplaceEntry("alpha", "beta")), false, false)
+                        .perform(xml, "UTF-8", env, logger));
+    }
+
+    @Test
+    public void testPerformExpand() throws Exception
+    {
+        final String xml = "<?xml version=\"1.0\"?>"
+                + "<root><node>VALUE1 ${VAR1} VALUE2 ${VAR2}</node></root>";
+
+        // not expanded
+        {
+            final MultipleReplaceOperation target = new MultipleReplaceOperation(
+                    Arrays.asList(new ReplaceEntry("${VAR1}", "${VAR2}")),
+                    false,
+                    false);
+            final Document doc = getXmlDocumentFromString(target.perform(xml, "UTF-8", env, logger));
+            assertEquals(
+                    "not expanded",
+                    "VALUE1 ${VAR2} VALUE2 ${VAR2}",
+                    doc.getElementsByTagName("node").item(0).getTextContent());
+        }
+
+        // expanded
+        {
+            final MultipleReplaceOperation target = new MultipleReplaceOperation(
+                    Arrays.asList(new ReplaceEntry("${VAR1}", "${VAR2}"), new ReplaceEntry("${VAR2}", "${EMPTY}")),
+                    true,
+                    true);
+            final Document doc = getXmlDocumentFromString(target.perform(xml, "UTF-8", env, logger));
+            assertEquals(
+                    "expanded",
+                    "VALUE2 ${VAR1}  ${VAR2}",
+                    doc.getElementsByTagName("node").item(0).getTextContent());
+        }
+    }
+
+    @Test
+    public void testPerformError()
+    {
+        final String xml = "<?xml version=\"1.0\"?><root><node>value</node></root>";
+
+        assertNull("null list", new MultipleReplaceOperation(null, false, false).perform(xml, "UTF-8", env, logger));
+        assertNull(
+                "empty list",
+                new MultipleReplaceOperation(new ArrayList<ReplaceEntry>(), false, false)
+                        .perform(xml, "UTF-8", env, logger));
+        assertNull(
+                "empty from string",
+                new MultipleReplaceOperation(Arrays.asList(new ReplaceEntry("", "X")), false, false)
+                        .perform(xml, "UTF-8", env, logger));
+        assertNull(
+                "from string gets empty",
+                new MultipleReplaceOperation(Arrays.asList(new ReplaceEntry("${EMPTY}", "X")), true, false)
+                        .perform(xml, "UTF-8", env, logger));
+        assertNotNull(
+                "null to string",
+                new MultipleReplaceOperation(Arrays.asList(new ReplaceEntry("value", null)), false, false)
+                        .perform(xml, "UTF-8", env, logger));
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests for ParallelTaskRunner not corresponded to Jenkins.
+ */
+public class ParallelTaskRunnerSimpleTest
+{
+    private static class LoggingTask implements ParallelTaskRunner.Task<Integer>
+    {
+        private final int id;
+
+        public LoggingTask(final int id)
+        {
+            this.id = id;
+        }
+
+        @Override
+        public Integer call(final PrintStream logger) throws Exception
+        {
+            logger.println("begin " + id);
+            // let other tasks run in the meantime.
+            Thread.sleep((id % 3) * 10);
+            logger.println("end " + id);
+            return id;
+        }
+    }
+
+    private static String getExpectedLog(final int count)
+    {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; ++i)
+        {
+            sb.append("begin " + i + System.getProperty("line.separator"));
+            sb.append("end " + i + System.getProperty("line.separator"));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testRunSequential() throws Exception
+    {
+        final List<LoggingTask> taskList = new ArrayList<LoggingTask>();
+        for (int i = 0; i < 5; ++i)
+        {
+            taskList.add(new LoggingTask(i));
+        }
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final PrintStream logger = new PrintStream(stream, true);
+
+        final List<Integer> resultList = ParallelTaskRunner.run(taskList, 1, "testRunSequential", logger);
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), resultList);
+        assertEquals(getExpectedLog(5), stream.toString());
+    }
+
+    @Test
+    public void testRunParallel() throws Exception
+    {
+        final List<LoggingTask> taskList = new ArrayList<LoggingTask>();
+        for (int i = 0; i < 20; ++i)
+        {
+            taskList.add(new LoggingTask(i));
+        }
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final PrintStream logger = new PrintStream(stream, true);
+
+        final List<Integer> resultList = ParallelTaskRunner.run(taskList, 4, "testRunParallel", logger);
+
+        assertEquals(20, resultList.size());
+        for (int i = 0; i < 20; ++i)
+        {
+            assertEquals(Integer.valueOf(i), resultList.get(i));
+        }
+        // logs are grouped per task, in the order of tasks.
+        assertEquals(getExpectedLog(20), stream.toString());
+    }
+
+    @Test
+    public void testRunConcurrently() throws Exception
+    {
+        final int parallelism = 4;
+        final CountDownLatch latch = new CountDownLatch(parallelism);
+        final List<ParallelTaskRunner.Task<Boolean>> taskList = new ArrayList<ParallelTaskRunner.Task<Boolean>>();
+        for (int i = 0; i < parallelism; ++i)
+        {
+            taskList.add(new ParallelTaskRunner.Task<Boolean>()
+            {
+                @Override
+                public Boolean call(final PrintStream logger) throws Exception
+                {
+                    latch.countDown();
+                    // succeeds only when all tasks run at the same time.
+                    return latch.await(10, TimeUnit.SECONDS);
+                }
+            });
+        }
+        final PrintStream logger = new PrintStream(new ByteArrayOutputStream());
+
+        for (final Boolean result : ParallelTaskRunner.run(taskList, parallelism, "testRunConcurrently", logger))
+        {
+            assertTrue(result);
+        }
+    }
+
+    @Test
+    public void testRunNested() throws Exception
+    {
+        final Set<Thread> threadSet = Collections.synchronizedSet(new HashSet<Thread>());
+        final List<ParallelTaskRunner.Task<Boolean>> taskList = new ArrayList<ParallelTaskRunner.Task<Boolean>>();
+        for (int i = 0; i < 3; ++i)
+        {
+            taskList.add(new ParallelTaskRunner.Task<Boolean>()
+            {
+                @Override
+                public Boolean call(final PrintStream logger) throws Exception
+                {
+                    final Thread outer = Thread.currentThread();
+                    threadSet.add(outer);
+                    final List<ParallelTaskRunner.Task<Boolean>> innerList = new ArrayList<ParallelTaskRunner.Task<Boolean>>();
+                    for (int j = 0; j < 4; ++j)
+                    {
+                        innerList.add(new ParallelTaskRunner.Task<Boolean>()
+                        {
+                            @Override
+                            public Boolean call(final PrintStream logger) throws Exception
+                            {
+                                // runs in the thread of the outer task.
+                                return Thread.currentThread() == outer;
+                            }
+                        });
+                    }
+                    for (final Boolean result : ParallelTaskRunner.run(innerList, 4, "inner", logger))
+                    {
+                        if(!result)
+                        {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            });
+        }
+        final PrintStream logger = new PrintStream(new ByteArrayOutputStream());
+
+        for (int i = 0; i < 3; ++i)
+        {
+            assertEquals(
+                    Arrays.asList(true, true, true),
+                    ParallelTaskRunner.run(taskList, 3, "testRunNested", logger));
+        }
+        // threads are shared by runs, and bounded.
+        assertTrue(threadSet.size() <= ParallelTaskRunner.MAX_THREADS);
+    }
+
+    @Test
+    public void testRunFailure() throws Exception
+    {
+        for (final int parallelism : new int[] { 1, 3 })
+        {
+            final List<ParallelTaskRunner.Task<Integer>> taskList = new ArrayList<ParallelTaskRunner.Task<Integer>>();
+            taskList.add(new LoggingTask(0));
+            taskList.add(new ParallelTaskRunner.Task<Integer>()
+            {
+                @Override
+                public Integer call(final PrintStream logger) throws Exception
+                {
+                    throw new IllegalStateException("testRunFailure");
+                }
+            });
+            taskList.add(new LoggingTask(2));
+            final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            final PrintStream logger = new PrintStream(stream, true);
+
+            final List<Integer> resultList = ParallelTaskRunner.run(taskList, parallelism, "testRunFailure", logger);
+
+            assertEquals(Integer.valueOf(0), resultList.get(0));
+            assertNull(resultList.get(1));
+            assertEquals(Integer.valueOf(2), resultList.get(2));
+            assertTrue(stream.toString().contains("testRunFailure"));
+            assertTrue(stream.toString().endsWith("end 2" + System.getProperty("line.separator")));
+        }
+    }
+}
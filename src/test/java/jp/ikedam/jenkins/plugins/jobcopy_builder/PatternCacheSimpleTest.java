@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.Test;
+
+/**
+ * Tests for PatternCache not corresponded to Jenkins.
+ */
+public class PatternCacheSimpleTest
+{
+    @Test
+    public void testCompile()
+    {
+        final long hitCount = PatternCache.getHitCount();
+        final long missCount = PatternCache.getMissCount();
+
+        final Pattern pattern1 = PatternCache.compile("testCompile-(\\d+)");
+        final Pattern pattern2 = PatternCache.compile("testCompile-(\\d+)");
+        final Pattern pattern3 = PatternCache.compile("testCompile-(\\d+)", Pattern.CASE_INSENSITIVE);
+        final Pattern pattern4 = PatternCache.compile("testCompile-(\\w+)");
+
+        assertSame(pattern1, pattern2);
+        assertNotSame(pattern1, pattern3);
+        assertEquals(Pattern.CASE_INSENSITIVE, pattern3.flags());
+        assertNotSame(pattern1, pattern4);
+        assertEquals(hitCount + 1, PatternCache.getHitCount());
+        assertEquals(missCount + 3, PatternCache.getMissCount());
+    }
+
+    @Test
+    public void testCompileInvalid()
+    {
+        final long missCount = PatternCache.getMissCount();
+        for (int i = 0; i < 2; ++i)
+        {
+            try
+            {
+                PatternCache.compile("testCompileInvalid(");
+                fail("Not reachable");
+            } catch (final PatternSyntaxException e)
+            {
+                assertTrue(true);
+            }
+        }
+        // invalid expressions are never cached.
+        assertEquals(missCount + 2, PatternCache.getMissCount());
+    }
+
+    @Test
+    public void testCompileBounded()
+    {
+        final Pattern pattern = PatternCache.compile("testCompileBounded");
+        for (int i = 0; i < PatternCache.MAX_SIZE; ++i)
+        {
+            PatternCache.compile("testCompileBounded" + i);
+        }
+        assertNotSame(pattern, PatternCache.compile("testCompileBounded"));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for PhaseTimings not corresponded to Jenkins.
+ */
+public class PhaseTimingsSimpleTest
+{
+    @Test
+    public void testRecord() throws Exception
+    {
+        final PhaseTimings timings = new PhaseTimings();
+        long t = System.nanoTime();
+        Thread.sleep(10);
+        t = timings.record("phase1", t);
+        final long end = PhaseTimings.record(timings, "phase2", t);
+        assertTrue(end >= t);
+
+        final List<PhaseTimings.Phase> phaseList = timings.getPhaseList();
+        assertEquals(2, phaseList.size());
+        assertEquals("phase1", phaseList.get(0).getName());
+        assertTrue(phaseList.get(0).getNanos() >= 10 * 1000 * 1000);
+        assertEquals("phase2", phaseList.get(1).getName());
+        assertEquals(
+                phaseList.get(0).getNanos() + phaseList.get(1).getNanos(),
+                timings.getTotalNanos());
+
+        // not recorded
+        PhaseTimings.record(null, "phase3", t);
+        assertEquals(2, timings.getPhaseList().size());
+    }
+
+    @Test
+    public void testCopy()
+    {
+        final PhaseTimings base = new PhaseTimings();
+        base.record("shared", System.nanoTime());
+
+        final PhaseTimings timings1 = new PhaseTimings(base);
+        timings1.record("target1", System.nanoTime());
+        final PhaseTimings timings2 = new PhaseTimings(base);
+
+        assertEquals(1, base.getPhaseList().size());
+        assertEquals(2, timings1.getPhaseList().size());
+        assertEquals("shared", timings1.getPhaseList().get(0).getName());
+        assertEquals(1, timings2.getPhaseList().size());
+        assertEquals(0, new PhaseTimings(null).getPhaseList().size());
+    }
+
+    @Test
+    public void testShared()
+    {
+        final PhaseTimings base = new PhaseTimings();
+        base.record("shared", System.nanoTime() - 1000);
+
+        final PhaseTimings timings = new PhaseTimings(base.toShared());
+        timings.record("target", System.nanoTime() - 2000);
+
+        final List<PhaseTimings.Phase> phaseList = timings.getPhaseList();
+        assertEquals(2, phaseList.size());
+        assertTrue(phaseList.get(0).isShared());
+        assertFalse(phaseList.get(1).isShared());
+        assertFalse(base.getPhaseList().get(0).isShared());
+        // shared phases are not counted.
+        assertEquals(phaseList.get(1).getNanos(), timings.getTotalNanos());
+        assertEquals(base.getTotalNanos(), base.toShared().getPhaseList().get(0).getNanos());
+    }
+
+    @Test
+    public void testDurationString()
+    {
+        assertEquals(
+                String.format("%.3f ms", 12.345),
+                new PhaseTimings.Phase("phase", 12345000).getDurationString());
+        assertEquals("Operation 2: EnableOperation", PhaseTimings.getOperationPhaseName(1, new EnableOperation()));
+    }
+}
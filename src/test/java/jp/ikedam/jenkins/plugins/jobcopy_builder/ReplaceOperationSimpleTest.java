@@ -26,6 +26,7 @@ package jp.ikedam.jenkins.plugins.jobcopy_builder;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -33,6 +34,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -525,4 +527,44 @@ public class ReplaceOperationSimpleTest
                     getNodeList(doc, "/root/node").item(0).getTextContent());
         }
     }
+
+    @Test
+    public void testPerformCData() throws UnsupportedEncodingException, ParserConfigurationException,
+            SAXException, IOException, XPathExpressionException
+    {
+        // XStream writes carriage returns as "&#xd;".
+        final String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<root attr=\"target\">"
+                + "<!-- target -->"
+                + "<command>echo target&#xd;\necho b</command>"
+                + "<script><![CDATA[if(a < b && target) {}&#xd;]]></script>"
+                + "<escaped>&lt;target&gt; &amp; target</escaped>"
+                + "</root>";
+        final ReplaceOperation target = new ReplaceOperation(
+                "target",
+                false,
+                "<&>",
+                false);
+
+        // performed alone.
+        final String result = target.perform(xml, "UTF-8", env, logger);
+        assertNotNull("Alone", result);
+        final Document doc = getXmlDocumentFromString(result);
+        assertEquals("Alone", "target", doc.getDocumentElement().getAttribute("attr"));
+        assertEquals("Alone", " target ", getNodeList(doc, "/root/comment()").item(0).getNodeValue());
+        assertEquals("Alone", "echo <&>\r\necho b", getNodeList(doc, "/root/command").item(0).getTextContent());
+        assertEquals(
+                "Alone",
+                "if(a < b && <&>) {}&#xd;",
+                getNodeList(doc, "/root/script").item(0).getTextContent());
+        assertEquals("Alone", "<<&>> & <&>", getNodeList(doc, "/root/escaped").item(0).getTextContent());
+        // CDATA sections are kept.
+        assertTrue("Alone", result.contains("<script><![CDATA[if(a < b && <&>) {}&#xd;]]></script>"));
+
+        // performed for multiple targets.
+        final JobcopyOperationPipeline.Template template = new JobcopyOperationPipeline(
+                Arrays.<JobcopyOperation> asList(target)).prepare(xml, "UTF-8", logger);
+        assertNotNull("Multiple targets", template);
+        assertEquals("Multiple targets", result, template.perform(env, logger));
+    }
 }
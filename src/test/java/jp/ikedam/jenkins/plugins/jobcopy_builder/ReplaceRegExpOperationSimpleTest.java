@@ -26,6 +26,7 @@ package jp.ikedam.jenkins.plugins.jobcopy_builder;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -577,4 +578,52 @@ public class ReplaceRegExpOperationSimpleTest
                     getNodeList(doc, "/root/node").item(0).getTextContent());
         }
     }
+
+    @Test
+    public void testPerformCData() throws UnsupportedEncodingException, ParserConfigurationException,
+            SAXException, IOException, XPathExpressionException
+    {
+        final String xml = "<?xml version=\"1.0\"?>"
+                + "<root>"
+                + "<script><![CDATA[if(a < b && target) {}]]></script>"
+                + "</root>";
+        final IJobcopyOperation target = new ReplaceRegExpOperation(
+                "t[ab]r.et",
+                false,
+                "replaced",
+                false);
+        final String result = target.perform(xml, "UTF-8", env, logger);
+        assertNotNull("CDATA", result);
+        assertTrue("CDATA sections are kept", result.contains("<![CDATA[if(a < b && replaced) {}]]>"));
+        final Document doc = getXmlDocumentFromString(result);
+        assertEquals("CDATA", "if(a < b && replaced) {}", getNodeList(doc, "/root/script").item(0).getTextContent());
+    }
+
+    @Test
+    public void testPerformManyMatches() throws UnsupportedEncodingException, ParserConfigurationException,
+            SAXException, IOException, XPathExpressionException
+    {
+        final StringBuilder value = new StringBuilder();
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10000; ++i)
+        {
+            value.append("target").append(i).append(' ');
+            expected.append("replaced").append(i).append(' ');
+        }
+        final String xml = "<?xml version=\"1.0\"?>"
+                + "<root>"
+                + "<node>" + value + "</node>"
+                + "<other>no match</other>"
+                + "</root>";
+        final IJobcopyOperation target = new ReplaceRegExpOperation(
+                "t[ab]r.et",
+                false,
+                "replaced",
+                false);
+        final String result = target.perform(xml, "UTF-8", env, logger);
+        assertNotNull("Many matches", result);
+        final Document doc = getXmlDocumentFromString(result);
+        assertEquals("Many matches", expected.toString(), getNodeList(doc, "/root/node").item(0).getTextContent());
+        assertEquals("No match", "no match", getNodeList(doc, "/root/other").item(0).getTextContent());
+    }
 }
@@ -0,0 +1,160 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import hudson.EnvVars;
+
+/**
+ * Tests for TransformationCache not corresponded to Jenkins.
+ */
+public class TransformationCacheSimpleTest
+{
+    private static class TestTransformationCache extends TransformationCache
+    {
+        public long now = 0;
+
+        public TestTransformationCache(final long maxLength, final long ttlMillis)
+        {
+            super(maxLength, ttlMillis);
+        }
+
+        @Override
+        protected long currentTimeMillis()
+        {
+            return now;
+        }
+    }
+
+    private static final String OPERATIONS = "<list><ReplaceOperation>"
+            + "<fromStr>${FROM}</fromStr><toStr>$TO-value</toStr>"
+            + "</ReplaceOperation></list>";
+
+    @Test
+    public void testGetKey()
+    {
+        final TransformationCache.Source source = new TransformationCache.Source("<project/>", "UTF-8", OPERATIONS);
+
+        final EnvVars env = new EnvVars();
+        env.put("FROM", "from");
+        env.put("TO", "to");
+        env.put("OTHER", "other");
+        final String key = source.getKey(env);
+
+        // same for variables not referenced.
+        final EnvVars env2 = new EnvVars(env);
+        env2.put("OTHER", "changed");
+        assertEquals(key, source.getKey(env2));
+        assertEquals(key, new TransformationCache.Source("<project/>", "UTF-8", OPERATIONS).getKey(env2));
+
+        // different for referenced variables.
+        final EnvVars env3 = new EnvVars(env);
+        env3.put("TO", "changed");
+        assertFalse(key.equals(source.getKey(env3)));
+        final EnvVars env4 = new EnvVars(env);
+        env4.remove("FROM");
+        assertFalse(key.equals(source.getKey(env4)));
+
+        // different for sources and operations.
+        assertFalse(key.equals(new TransformationCache.Source("<project></project>", "UTF-8", OPERATIONS)
+                .getKey(env)));
+        assertFalse(key.equals(new TransformationCache.Source("<project/>", "UTF-8", OPERATIONS.replace("-value", ""))
+                .getKey(env)));
+    }
+
+    @Test
+    public void testGetDigestOf()
+    {
+        // boundaries are not ambiguous.
+        assertFalse(TransformationCache.getDigestOf("ab", "c").equals(TransformationCache.getDigestOf("a", "bc")));
+        assertFalse(TransformationCache.getDigestOf("", null).equals(TransformationCache.getDigestOf(null, "")));
+    }
+
+    @Test
+    public void testGetPut()
+    {
+        final TestTransformationCache cache = new TestTransformationCache(100, 1000);
+        assertNull(cache.get("key1"));
+        cache.put("key1", "value1");
+        assertEquals("value1", cache.get("key1"));
+        cache.put("key1", "value1-2");
+        assertEquals("value1-2", cache.get("key1"));
+        assertEquals(1, cache.size());
+        assertEquals("value1-2".length(), cache.getTotalLength());
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2.0 / 3.0, cache.getHitRate(), 0.0001);
+
+        cache.clear();
+        assertNull(cache.get("key1"));
+        assertEquals(0, cache.getTotalLength());
+    }
+
+    @Test
+    public void testExpire()
+    {
+        final TestTransformationCache cache = new TestTransformationCache(100, 1000);
+        cache.put("key1", "value1");
+        cache.now = 500;
+        cache.put("key2", "value2");
+        cache.now = 999;
+        assertEquals("value1", cache.get("key1"));
+        cache.now = 1000;
+        assertNull(cache.get("key1"));
+        assertEquals("value2", cache.get("key2"));
+        assertEquals(1, cache.size());
+
+        // expired entries are discarded when putting.
+        cache.now = 1500;
+        cache.put("key3", "value3");
+        assertEquals(1, cache.size());
+        assertEquals("value3".length(), cache.getTotalLength());
+    }
+
+    @Test
+    public void testEvict()
+    {
+        final TestTransformationCache cache = new TestTransformationCache(10, 1000);
+        cache.put("key1", "1234");
+        cache.put("key2", "5678");
+        // key1 is now more recently used than key2.
+        assertEquals("1234", cache.get("key1"));
+        cache.put("key3", "abcd");
+        assertNull(cache.get("key2"));
+        assertEquals("1234", cache.get("key1"));
+        assertEquals("abcd", cache.get("key3"));
+        assertEquals(8, cache.getTotalLength());
+
+        // too long to cache.
+        cache.put("key4", "12345678901");
+        assertNull(cache.get("key4"));
+        assertEquals(2, cache.size());
+    }
+}
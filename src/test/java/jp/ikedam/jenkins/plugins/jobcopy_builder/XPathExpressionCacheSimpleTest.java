@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+
+import org.junit.Test;
+
+/**
+ * Tests for XPathExpressionCache not corresponded to Jenkins.
+ */
+public class XPathExpressionCacheSimpleTest
+{
+    @Test
+    public void testCompile() throws XPathExpressionException
+    {
+        final long hitCount = XPathExpressionCache.getHitCount();
+        final long missCount = XPathExpressionCache.getMissCount();
+
+        final XPathExpression expr1 = XPathExpressionCache.compile("/testCompile/node");
+        final XPathExpression expr2 = XPathExpressionCache.compile("/testCompile/node");
+        final XPathExpression expr3 = XPathExpressionCache.compile("/testCompile/other");
+
+        assertSame(expr1, expr2);
+        assertNotSame(expr1, expr3);
+        assertEquals(hitCount + 1, XPathExpressionCache.getHitCount());
+        assertEquals(missCount + 2, XPathExpressionCache.getMissCount());
+    }
+
+    @Test
+    public void testCompileInvalid()
+    {
+        try
+        {
+            XPathExpressionCache.compile("hoge()");
+            fail("Not reachable");
+        } catch (final XPathExpressionException e)
+        {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testCompileBounded() throws XPathExpressionException
+    {
+        final XPathExpression expr = XPathExpressionCache.compile("/testCompileBounded/node");
+        for (int i = 0; i < XPathExpressionCache.MAX_SIZE; ++i)
+        {
+            XPathExpressionCache.compile("/testCompileBounded/node" + i);
+        }
+        assertNotSame(expr, XPathExpressionCache.compile("/testCompileBounded/node"));
+    }
+
+    @Test
+    public void testCompileInOtherThread() throws Exception
+    {
+        final XPathExpression expr = XPathExpressionCache.compile("/testCompileInOtherThread/node");
+        final AtomicReference<XPathExpression> exprInThread = new AtomicReference<XPathExpression>();
+        final Thread t = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    exprInThread.set(XPathExpressionCache.compile("/testCompileInOtherThread/node"));
+                } catch (final XPathExpressionException e)
+                {
+                    e.printStackTrace();
+                }
+            }
+        };
+        t.start();
+        t.join();
+
+        assertFalse(exprInThread.get() == null);
+        assertNotSame(expr, exprInThread.get());
+    }
+}
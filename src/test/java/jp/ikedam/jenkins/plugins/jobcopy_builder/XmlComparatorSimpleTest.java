@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016 IKEDA Yasuyuki
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.ikedam.jenkins.plugins.jobcopy_builder;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+import hudson.util.NullStream;
+
+/**
+ * Tests for XmlComparator not corresponded to Jenkins.
+ */
+public class XmlComparatorSimpleTest
+{
+    private final PrintStream logger = new PrintStream(new NullStream());
+
+    private static final String CONFIG = "<?xml version='1.0' encoding='UTF-8'?>\n"
+            + "<project>\n"
+            + "  <description>  some  text  </description>\n"
+            + "  <disabled>false</disabled>\n"
+            + "  <builders>\n"
+            + "    <hudson.tasks.Shell plugin=\"shell@1.0\">\n"
+            + "      <command>echo test</command>\n"
+            + "    </hudson.tasks.Shell>\n"
+            + "  </builders>\n"
+            + "</project>\n";
+
+    @Test
+    public void testSame()
+    {
+        assertTrue(XmlComparator.isEquivalent(CONFIG, CONFIG, "UTF-8", logger));
+    }
+
+    @Test
+    public void testEquivalent()
+    {
+        // XML declaration and indents differ.
+        final String config = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>"
+                + "<project>"
+                + "<description>  some  text  </description>"
+                + "\t<disabled>false</disabled>\r\n"
+                + "<builders><hudson.tasks.Shell plugin=\"shell@1.0\"><command>echo test</command></hudson.tasks.Shell></builders>"
+                + "</project>";
+        assertTrue(XmlComparator.isEquivalent(CONFIG, config, "UTF-8", logger));
+        assertTrue(XmlComparator.isEquivalent(config, CONFIG, "UTF-8", logger));
+    }
+
+    @Test
+    public void testNotEquivalent()
+    {
+        // text
+        assertFalse(XmlComparator.isEquivalent(CONFIG, CONFIG.replace("false", "true"), "UTF-8", logger));
+        // whitespaces in text
+        assertFalse(XmlComparator.isEquivalent(CONFIG, CONFIG.replace("some  text", "some text"), "UTF-8", logger));
+        // attribute
+        assertFalse(XmlComparator.isEquivalent(CONFIG, CONFIG.replace("shell@1.0", "shell@1.1"), "UTF-8", logger));
+        // element
+        assertFalse(XmlComparator.isEquivalent(CONFIG, CONFIG.replace("  <disabled>false</disabled>\n", ""), "UTF-8",
+                logger));
+    }
+
+    @Test
+    public void testInvalid()
+    {
+        assertFalse(XmlComparator.isEquivalent(CONFIG, "<project>", "UTF-8", logger));
+        assertFalse(XmlComparator.isEquivalent(CONFIG, null, "UTF-8", logger));
+        assertFalse(XmlComparator.isEquivalent(null, null, "UTF-8", logger));
+    }
+}